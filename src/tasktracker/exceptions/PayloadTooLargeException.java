@@ -0,0 +1,7 @@
+package tasktracker.exceptions;
+
+public class PayloadTooLargeException extends RuntimeException {
+    public PayloadTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package tasktracker.exceptions;
+
+import com.google.gson.JsonParseException;
+
+// Поле type в JSON указывает тип, который не подходит запрошенному классу
+public class TaskTypeMismatchException extends JsonParseException {
+    public TaskTypeMismatchException(String message) {
+        super(message);
+    }
+}
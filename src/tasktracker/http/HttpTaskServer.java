@@ -3,27 +3,91 @@ package tasktracker.http;
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpServer;
 import tasktracker.http.handlers.*;
+import tasktracker.manager.ConcurrentTaskManager;
+import tasktracker.manager.DurabilityPolicy;
 import tasktracker.manager.Managers;
+import tasktracker.manager.SessionHistoryManager;
 import tasktracker.manager.TaskManager;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class HttpTaskServer {
     private final HttpServer server;
+    private final TaskManager manager;
+    private final ExecutorService executor;
+    // Исполнитель по умолчанию создаёт сам сервер и сам же его останавливает
+    private final boolean ownsExecutor;
+    // Обработчики, читающие тело запроса
+    private final List<BaseHttpHandler> bodyHandlers;
+    // Готовый JSON задач для списков; сбрасывается менеджером при изменениях
+    private final JsonFragmentCache jsonCache;
 
+    // По умолчанию каждый запрос обрабатывается в своём виртуальном потоке,
+    // поэтому медленный клиент не задерживает остальных. Запросы идут параллельно, так что менеджер,
+    // который не является ConcurrentTaskManager, оборачивается в него
     public HttpTaskServer(TaskManager manager) throws IOException {
+        this(threadSafe(manager), Executors.newVirtualThreadPerTaskExecutor(), true);
+    }
+
+    // Запросы выполняются на переданном исполнителе; его жизненным циклом управляет вызывающий код.
+    // Менеджер должен быть потокобезопасным, если исполнитель многопоточный (см. ConcurrentTaskManager)
+    public HttpTaskServer(TaskManager manager, ExecutorService executor) throws IOException {
+        this(manager, executor, false);
+    }
+
+    private HttpTaskServer(TaskManager manager, ExecutorService executor, boolean ownsExecutor) throws IOException {
+        this.manager = manager;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
         server = HttpServer.create(new InetSocketAddress(8080), 0);
+        server.setExecutor(executor);
 
-        server.createContext("/tasks", new TaskHandler(manager));
-        server.createContext("/subtasks", new SubtaskHandler(manager));
-        server.createContext("/epics", new EpicHandler(manager));
-        server.createContext("/history", new HistoryHandler(manager));
-        server.createContext("/prioritized", new PrioritizedHandler(manager));
+        // Истории просмотров по клиентам (заголовок X-Client-Id)
+        SessionHistoryManager sessions = new SessionHistoryManager();
+        jsonCache = new JsonFragmentCache(Managers.getGson());
+        manager.addChangeListener(jsonCache);
+        // Маршруты собираются один раз; при запросе путь только проходится по дереву сегментов
+        Router router = new Router();
+        TaskHandler taskHandler = new TaskHandler(manager, sessions);
+        SubtaskHandler subtaskHandler = new SubtaskHandler(manager, sessions);
+        EpicHandler epicHandler = new EpicHandler(manager, sessions);
+        taskHandler.register(router);
+        subtaskHandler.register(router);
+        epicHandler.register(router);
+        bodyHandlers = List.of(taskHandler, subtaskHandler, epicHandler);
+        HistoryHandler historyHandler = new HistoryHandler(manager, sessions);
+        PrioritizedHandler prioritizedHandler = new PrioritizedHandler(manager);
+        historyHandler.register(router);
+        prioritizedHandler.register(router);
+        for (BaseHttpHandler handler : List.of(taskHandler, subtaskHandler, epicHandler, historyHandler,
+                prioritizedHandler)) {
+            handler.setJsonCache(jsonCache);
+        }
+        server.createContext("/", new RouterHandler(router));
 
         System.out.println("HTTP сервер запущен на порту 8080...");
     }
 
+    private static TaskManager threadSafe(TaskManager manager) {
+        return manager instanceof ConcurrentTaskManager ? manager : new ConcurrentTaskManager(manager);
+    }
+
+    // Наибольший размер тела запроса; запросы больше отклоняются с кодом 413
+    public void setMaxBodySize(long maxBodySize) {
+        for (BaseHttpHandler handler : bodyHandlers) {
+            handler.setMaxBodySize(maxBodySize);
+        }
+    }
+
+    public JsonFragmentCache getJsonCache() {
+        return jsonCache;
+    }
+
     public static Gson getGson() {
         // Теперь получаем Gson из Managers
         return Managers.getGson();
@@ -33,13 +97,34 @@ public class HttpTaskServer {
         server.start();
     }
 
+    // Кеш отписывается от менеджера: менеджер может пережить сервер и не должен держать его кеш
     public void stop() {
         server.stop(0);
+        manager.removeChangeListener(jsonCache);
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    // Остановка сервера вместе с менеджером, если сервер им владеет (как в main): закрываются
+    // фоновые потоки истории и файлы менеджера
+    public void shutdown() {
+        try {
+            stop();
+        } finally {
+            manager.close();
+        }
     }
 
+    // Путь к файлу задач в аргументе включает хранение на диске; без него задачи живут только в памяти.
+    // POST-запросы приходят пачками, поэтому журнал пишется группами: один fsync на 64 изменения
+    // или раз в 10 мс, при сбое теряется не больше одной группы
     public static void main(String[] args) throws IOException {
-        TaskManager taskManager = Managers.getDefault();
+        TaskManager taskManager = args.length > 0
+                ? Managers.getConcurrent(new File(args[0]), DurabilityPolicy.groupCommit(64, 10))
+                : Managers.getConcurrent();
         HttpTaskServer server = new HttpTaskServer(taskManager);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::shutdown, "http-shutdown"));
         server.start();
     }
 }
@@ -0,0 +1,160 @@
+package tasktracker.http;
+
+import com.google.gson.Gson;
+import tasktracker.manager.TaskChangeListener;
+import tasktracker.tasks.Task;
+import tasktracker.util.IntObjectHashMap;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Готовый JSON задач для сборки списков в ответах: большинство задач между опросами не меняется,
+// и повторно сериализовать их незачем. Записи хранятся по id вместе с версией id, под которой собран JSON.
+// Менеджер сообщает об изменениях (addChangeListener): версия id растёт, и старая запись больше
+// не подходит; изменения других задач её не трогают. Вместе с версией запоминается объект, который хранит
+// менеджер: история может отдать прежний объект с тем же id, и по нему JSON собирается из текущего.
+// Если версия сдвинулась, пока задача сериализовалась, результат не сохраняется.
+// Объём JSON ограничен maxBytes, при превышении вытесняются давно не использованные записи.
+// Версии хранятся для задач, изменённых после подписки, и удаляются вместе с задачей.
+public class JsonFragmentCache implements TaskChangeListener {
+    public static final long DEFAULT_MAX_BYTES = 16 << 20;
+    // Примерный расход памяти на запись помимо самого JSON: объект записи, ключ и узел таблицы
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private final Gson gson;
+    private final long maxBytes;
+    // Порядок доступа: первым идёт давно не использованный элемент
+    private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // id -> текущий объект и версия; у задачи без изменений после подписки версия 0
+    private final IntObjectHashMap<Version> versions = new IntObjectHashMap<>();
+    // Растёт при каждом удалении: задача без версии могла быть удалена, пока сериализовалась
+    private long removals;
+    private long bytes;
+    private long hits;
+    private long misses;
+
+    private static final class Entry {
+        final int version;
+        final byte[] json;
+
+        Entry(int version, byte[] json) {
+            this.version = version;
+            this.json = json;
+        }
+    }
+
+    private static final class Version {
+        final Task task;
+        final int number;
+
+        Version(Task task, int number) {
+            this.task = task;
+            this.number = number;
+        }
+    }
+
+    public JsonFragmentCache(Gson gson) {
+        this(gson, DEFAULT_MAX_BYTES);
+    }
+
+    public JsonFragmentCache(Gson gson, long maxBytes) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("Размер кеша должен быть положительным.");
+        }
+        this.gson = gson;
+        this.maxBytes = maxBytes;
+    }
+
+    // JSON текущей версии задачи с id task в UTF-8. Подходит запись того же id с текущей версией,
+    // какой бы объект ни был передан. Возвращаемый массив общий, изменять его нельзя
+    public byte[] get(Task task) {
+        int id = task.getId();
+        Version version;
+        long startRemovals;
+        synchronized (this) {
+            version = versions.get(id);
+            Entry entry = entries.get(id);
+            if (entry != null && entry.version == number(version)) {
+                hits++;
+                return entry.json;
+            }
+            misses++;
+            startRemovals = removals;
+        }
+        // Сериализация вне блокировки, чтобы не задерживать другие запросы
+        Task current = version != null ? version.task : task;
+        byte[] json = gson.toJson(current, current.getClass()).getBytes(StandardCharsets.UTF_8);
+        synchronized (this) {
+            long size = json.length + ENTRY_OVERHEAD;
+            boolean unchanged = versions.get(id) == version && (version != null || startRemovals == removals);
+            if (unchanged && size <= maxBytes) {
+                Entry previous = entries.put(id, new Entry(number(version), json));
+                if (previous != null) {
+                    bytes -= previous.json.length + ENTRY_OVERHEAD;
+                }
+                bytes += size;
+                evict();
+            }
+        }
+        return json;
+    }
+
+    @Override
+    public synchronized void taskChanged(Task task) {
+        int id = task.getId();
+        versions.put(id, new Version(task, number(versions.get(id)) + 1));
+        dropEntry(id);
+    }
+
+    @Override
+    public synchronized void taskRemoved(int id) {
+        removals++;
+        versions.remove(id);
+        dropEntry(id);
+    }
+
+    // Записи JSON удаляются; версии остаются, так как описывают текущие объекты менеджера
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    // Занятая память JSON с учётом ENTRY_OVERHEAD
+    public synchronized long sizeInBytes() {
+        return bytes;
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    private static int number(Version version) {
+        return version != null ? version.number : 0;
+    }
+
+    // Запись старой версии всё равно не подошла бы, но занимает место
+    private void dropEntry(int id) {
+        Entry entry = entries.remove(id);
+        if (entry != null) {
+            bytes -= entry.json.length + ENTRY_OVERHEAD;
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Integer, Entry>> iterator = entries.entrySet().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            bytes -= iterator.next().getValue().json.length + ENTRY_OVERHEAD;
+            iterator.remove();
+        }
+    }
+}
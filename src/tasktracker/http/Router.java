@@ -0,0 +1,247 @@
+package tasktracker.http;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Таблица маршрутов: дерево по сегментам пути, которое строится один раз при запуске сервера.
+// Шаблон состоит из литералов и параметров: "/epics/{id:int}/subtasks". Параметр {name:int} принимает
+// только десятичное число в диапазоне int и разбирается при обходе пути, {name} — любой непустой сегмент.
+// Литерал имеет приоритет над параметром на том же уровне. Поиск не использует регулярные выражения
+// и не разбивает путь на массив строк.
+public class Router {
+    private static final int MAX_PARAMS = 4;
+
+    // Обработчик маршрута
+    @FunctionalInterface
+    public interface Route {
+        void handle(HttpExchange exchange, PathParams params) throws IOException;
+    }
+
+    public enum Status {
+        FOUND,
+        NOT_FOUND,
+        METHOD_NOT_ALLOWED
+    }
+
+    // Результат поиска маршрута
+    public static final class Match {
+        private static final Match NOT_FOUND = new Match(Status.NOT_FOUND, null, null);
+        private static final Match METHOD_NOT_ALLOWED = new Match(Status.METHOD_NOT_ALLOWED, null, null);
+
+        private final Status status;
+        private final Route route;
+        private final PathParams params;
+
+        private Match(Status status, Route route, PathParams params) {
+            this.status = status;
+            this.route = route;
+            this.params = params;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public Route getRoute() {
+            return route;
+        }
+
+        public PathParams getParams() {
+            return params;
+        }
+    }
+
+    // Значения параметров пути, разобранные при поиске маршрута
+    public static final class PathParams {
+        private static final PathParams EMPTY = new PathParams();
+
+        private final String[] names = new String[MAX_PARAMS];
+        private final int[] ints = new int[MAX_PARAMS];
+        private final String[] strings = new String[MAX_PARAMS];
+        private int size;
+
+        public int getInt(String name) {
+            int index = indexOf(name);
+            if (strings[index] != null) {
+                throw new IllegalStateException("Параметр " + name + " не числовой.");
+            }
+            return ints[index];
+        }
+
+        public String get(String name) {
+            int index = indexOf(name);
+            return strings[index] != null ? strings[index] : String.valueOf(ints[index]);
+        }
+
+        private int indexOf(String name) {
+            for (int i = 0; i < size; i++) {
+                if (names[i].equals(name)) {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException("Нет параметра пути " + name);
+        }
+    }
+
+    private enum ParamType {
+        INT,
+        STRING
+    }
+
+    private static final class Node {
+        final String literal;
+        final List<Node> literals = new ArrayList<>();
+        Node parameter;
+        String paramName;
+        ParamType paramType;
+        final Map<String, Route> routes = new HashMap<>();
+
+        Node(String literal) {
+            this.literal = literal;
+        }
+
+        Node findLiteral(String path, int start, int end) {
+            for (Node child : literals) {
+                if (child.literal.length() == end - start && path.startsWith(child.literal, start)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Node root = new Node("");
+
+    public Router get(String template, Route route) {
+        return add("GET", template, route);
+    }
+
+    public Router post(String template, Route route) {
+        return add("POST", template, route);
+    }
+
+    public Router delete(String template, Route route) {
+        return add("DELETE", template, route);
+    }
+
+    public Router add(String method, String template, Route route) {
+        if (!template.startsWith("/")) {
+            throw new IllegalArgumentException("Шаблон пути должен начинаться с '/': " + template);
+        }
+        Node node = root;
+        int params = 0;
+        if (template.length() > 1) {
+            for (String segment : template.substring(1).split("/", -1)) {
+                if (segment.startsWith("{") && segment.endsWith("}")) {
+                    if (++params > MAX_PARAMS) {
+                        throw new IllegalArgumentException("Слишком много параметров в шаблоне " + template);
+                    }
+                    node = parameterChild(node, segment.substring(1, segment.length() - 1), template);
+                } else if (!segment.isEmpty()) {
+                    Node child = node.findLiteral(segment, 0, segment.length());
+                    if (child == null) {
+                        child = new Node(segment);
+                        node.literals.add(child);
+                    }
+                    node = child;
+                } else {
+                    throw new IllegalArgumentException("Пустой сегмент в шаблоне " + template);
+                }
+            }
+        }
+        if (node.routes.putIfAbsent(method, route) != null) {
+            throw new IllegalArgumentException("Маршрут уже задан: " + method + " " + template);
+        }
+        return this;
+    }
+
+    private static Node parameterChild(Node node, String spec, String template) {
+        int colon = spec.indexOf(':');
+        String name = colon < 0 ? spec : spec.substring(0, colon);
+        ParamType type;
+        if (colon < 0) {
+            type = ParamType.STRING;
+        } else if ("int".equals(spec.substring(colon + 1))) {
+            type = ParamType.INT;
+        } else {
+            throw new IllegalArgumentException("Неизвестный тип параметра в шаблоне " + template);
+        }
+        if (node.parameter == null) {
+            node.parameter = new Node(null);
+            node.paramName = name;
+            node.paramType = type;
+        } else if (!node.paramName.equals(name) || node.paramType != type) {
+            throw new IllegalArgumentException("Разные параметры на одном уровне в шаблоне " + template);
+        }
+        return node.parameter;
+    }
+
+    public Match find(String method, String path) {
+        if (path == null || path.isEmpty() || path.charAt(0) != '/') {
+            return Match.NOT_FOUND;
+        }
+        Node node = root;
+        PathParams params = null;
+        int start = 1;
+        // "/" — корень, иначе путь проходится по сегментам между '/'
+        while (start <= path.length() && path.length() > 1) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            Node next = node.findLiteral(path, start, end);
+            if (next == null && node.parameter != null && end > start) {
+                if (params == null) {
+                    params = new PathParams();
+                }
+                if (!capture(params, node, path, start, end)) {
+                    return Match.NOT_FOUND;
+                }
+                next = node.parameter;
+            }
+            if (next == null) {
+                return Match.NOT_FOUND;
+            }
+            node = next;
+            start = end + 1;
+        }
+        if (node.routes.isEmpty()) {
+            return Match.NOT_FOUND;
+        }
+        Route route = node.routes.get(method);
+        if (route == null) {
+            return Match.METHOD_NOT_ALLOWED;
+        }
+        return new Match(Status.FOUND, route, params != null ? params : PathParams.EMPTY);
+    }
+
+    // Разбор значения параметра прямо из пути; false, если сегмент не подходит по типу
+    private static boolean capture(PathParams params, Node node, String path, int start, int end) {
+        int index = params.size;
+        params.names[index] = node.paramName;
+        if (node.paramType == ParamType.STRING) {
+            params.strings[index] = path.substring(start, end);
+        } else {
+            long value = 0;
+            for (int i = start; i < end; i++) {
+                char c = path.charAt(i);
+                if (c < '0' || c > '9') {
+                    return false;
+                }
+                value = value * 10 + (c - '0');
+                if (value > Integer.MAX_VALUE) {
+                    return false;
+                }
+            }
+            params.ints[index] = (int) value;
+            params.strings[index] = null;
+        }
+        params.size++;
+        return true;
+    }
+}
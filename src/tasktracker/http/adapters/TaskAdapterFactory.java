@@ -0,0 +1,241 @@
+package tasktracker.http.adapters;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import tasktracker.exceptions.TaskTypeMismatchException;
+import tasktracker.status.TaskStatus;
+import tasktracker.tasks.Epic;
+import tasktracker.tasks.Subtask;
+import tasktracker.tasks.Task;
+import tasktracker.tasks.TaskType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+// Потоковая (без рефлексии) сериализация Task, Epic и Subtask. Поле "type" (TASK, EPIC, SUBTASK)
+// определяет класс при чтении, поэтому подзадача, прочитанная как Task, остаётся Subtask.
+// Без "type" создаётся запрошенный класс — так читается JSON, записанный до появления поля.
+// startTime пишется числом секунд от 1970-01-01T00:00 с дробной частью до наносекунд, если она есть
+// ("1704099600" вместо "2024-01-01T09:00:00"); при чтении принимается и прежняя строка ISO.
+// duration, как и раньше, — миллисекунды.
+public class TaskAdapterFactory implements TypeAdapterFactory {
+    private static final BigDecimal NANOS_PER_SECOND = BigDecimal.valueOf(1_000_000_000L);
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> raw = type.getRawType();
+        if (raw != Task.class && raw != Epic.class && raw != Subtask.class) {
+            return null;
+        }
+        return (TypeAdapter<T>) new TaskAdapter((Class<? extends Task>) raw).nullSafe();
+    }
+
+    private static final class TaskAdapter extends TypeAdapter<Task> {
+        private final Class<? extends Task> requested;
+
+        TaskAdapter(Class<? extends Task> requested) {
+            this.requested = requested;
+        }
+
+        @Override
+        public void write(JsonWriter out, Task task) throws IOException {
+            out.beginObject();
+            out.name("type").value(typeOf(task).name());
+            out.name("id").value(task.getId());
+            out.name("title").value(task.getTitle());
+            out.name("description").value(task.getDescription());
+            out.name("status").value(task.getStatus() != null ? task.getStatus().name() : null);
+            if (task.getDuration() != null) {
+                out.name("duration").value(task.getDuration().toMillis());
+            }
+            if (task.getStartTime() != null) {
+                out.name("startTime");
+                writeTime(out, task.getStartTime());
+            }
+            if (task instanceof Subtask) {
+                out.name("epicId").value(((Subtask) task).getEpicId());
+            } else if (task instanceof Epic) {
+                // Id собираются в массив: обход forEachSubtaskId не может бросить IOException
+                Epic epic = (Epic) task;
+                int[] ids = new int[epic.getSubtaskCount()];
+                int[] count = new int[1];
+                epic.forEachSubtaskId(id -> ids[count[0]++] = id);
+                out.name("subtaskIds").beginArray();
+                for (int id : ids) {
+                    out.value(id);
+                }
+                out.endArray();
+            }
+            out.endObject();
+        }
+
+        @Override
+        public Task read(JsonReader in) throws IOException {
+            TaskType type = null;
+            int id = 0;
+            String title = null;
+            String description = null;
+            TaskStatus status = null;
+            Duration duration = null;
+            LocalDateTime startTime = null;
+            int epicId = 0;
+            int[] subtaskIds = null;
+            int subtaskCount = 0;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "type":
+                        type = parseEnum(TaskType.class, in.nextString());
+                        break;
+                    case "id":
+                        id = in.nextInt();
+                        break;
+                    case "title":
+                        title = in.nextString();
+                        break;
+                    case "description":
+                        description = in.nextString();
+                        break;
+                    case "status":
+                        status = parseEnum(TaskStatus.class, in.nextString());
+                        break;
+                    case "duration":
+                        duration = Duration.ofMillis(in.nextLong());
+                        break;
+                    case "startTime":
+                        startTime = readTime(in);
+                        break;
+                    case "epicId":
+                        epicId = in.nextInt();
+                        break;
+                    case "subtaskIds":
+                        subtaskIds = new int[8];
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            if (subtaskCount == subtaskIds.length) {
+                                subtaskIds = Arrays.copyOf(subtaskIds, subtaskCount * 2);
+                            }
+                            subtaskIds[subtaskCount++] = in.nextInt();
+                        }
+                        in.endArray();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+
+            if (type == null) {
+                type = requested == Epic.class ? TaskType.EPIC
+                        : requested == Subtask.class ? TaskType.SUBTASK : TaskType.TASK;
+            }
+            Task task;
+            switch (type) {
+                case EPIC: {
+                    Epic epic = new Epic(title, description, id);
+                    for (int i = 0; i < subtaskCount; i++) {
+                        epic.addSubtask(subtaskIds[i]);
+                    }
+                    // Агрегаты эпика пересчитывает менеджер; переданные значения сохраняются как есть
+                    if (status != null) {
+                        epic.setStatus(status);
+                    }
+                    if (duration != null) {
+                        epic.setDuration(duration);
+                    }
+                    epic.setStartTime(startTime);
+                    task = epic;
+                    break;
+                }
+                case SUBTASK:
+                    task = new Subtask(title, description, id, status, duration, startTime, epicId);
+                    break;
+                default:
+                    task = new Task(title, description, id, status, duration, startTime);
+            }
+            if (!requested.isInstance(task)) {
+                throw new TaskTypeMismatchException("Ожидался " + requested.getSimpleName() + ", получен " + type);
+            }
+            return task;
+        }
+    }
+
+    private static TaskType typeOf(Task task) {
+        if (task instanceof Epic) {
+            return TaskType.EPIC;
+        }
+        return task instanceof Subtask ? TaskType.SUBTASK : TaskType.TASK;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value);
+        } catch (IllegalArgumentException e) {
+            throw new JsonSyntaxException("Неизвестное значение " + type.getSimpleName() + ": " + value, e);
+        }
+    }
+
+    // Секунды от эпохи; дробная часть пишется только при ненулевых наносекундах и без хвостовых нулей
+    static void writeTime(JsonWriter out, LocalDateTime time) throws IOException {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        int nano = time.getNano();
+        if (nano == 0) {
+            out.value(seconds);
+        } else if (seconds >= 0) {
+            StringBuilder value = new StringBuilder(20).append(seconds).append('.');
+            String fraction = Integer.toString(nano + 1_000_000_000).substring(1);
+            int end = fraction.length();
+            while (fraction.charAt(end - 1) == '0') {
+                end--;
+            }
+            out.jsonValue(value.append(fraction, 0, end).toString());
+        } else {
+            // До 1970 года: дробная часть отсчитывается от меньшей целой секунды
+            out.jsonValue(BigDecimal.valueOf(seconds).add(BigDecimal.valueOf(nano, 9))
+                    .stripTrailingZeros().toPlainString());
+        }
+    }
+
+    static LocalDateTime readTime(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.STRING) {
+            String value = in.nextString();
+            try {
+                return LocalDateTime.parse(value);
+            } catch (DateTimeParseException e) {
+                throw new JsonSyntaxException("Некорректное время: " + value, e);
+            }
+        }
+        String value = in.nextString();
+        try {
+            if (value.indexOf('.') < 0 && value.indexOf('e') < 0 && value.indexOf('E') < 0) {
+                return LocalDateTime.ofEpochSecond(Long.parseLong(value), 0, ZoneOffset.UTC);
+            }
+            BigDecimal decimal = new BigDecimal(value);
+            BigDecimal seconds = decimal.setScale(0, RoundingMode.FLOOR);
+            int nano = decimal.subtract(seconds).multiply(NANOS_PER_SECOND).intValueExact();
+            return LocalDateTime.ofEpochSecond(seconds.longValueExact(), nano, ZoneOffset.UTC);
+        } catch (NumberFormatException | ArithmeticException | DateTimeException e) {
+            throw new JsonSyntaxException("Некорректное время: " + value, e);
+        }
+    }
+}
@@ -2,59 +2,132 @@ package tasktracker.http.handlers;
 
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
+import tasktracker.exceptions.PayloadTooLargeException;
+import tasktracker.exceptions.TaskTypeMismatchException;
+import tasktracker.http.JsonFragmentCache;
 import tasktracker.manager.Managers;
+import tasktracker.manager.TaskManager;
+import tasktracker.tasks.Task;
 
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Reader;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Supplier;
 
-public abstract class BaseHttpHandler implements com.sun.net.httpserver.HttpHandler {
-    protected final Gson gson = Managers.getGson();
+// Общие части обработчиков: ответы, разбор тела и параметров запроса. Запросы принимает RouterHandler
+// и передаёт их маршрутам, которые регистрируют обработчики
+public abstract class BaseHttpHandler {
+    // Заголовок, по которому ведётся отдельная история просмотров для каждого клиента
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+    private static final int MAX_CLIENT_ID_LENGTH = 128;
+    private static final int RESPONSE_BUFFER_SIZE = 8192;
+    // Наибольший размер тела запроса по умолчанию, 1 МиБ
+    public static final long DEFAULT_MAX_BODY_SIZE = 1 << 20;
 
-    @Override
-    public void handle(HttpExchange exchange) throws IOException {
-        String method = exchange.getRequestMethod();
+    private long maxBodySize = DEFAULT_MAX_BODY_SIZE;
+    // Готовый JSON задач для списков; без кеша каждая задача сериализуется заново
+    private JsonFragmentCache jsonCache;
 
-        try {
-            switch (method) {
-                case "GET":
-                    processGet(exchange);
-                    break;
-                case "POST":
-                    processPost(exchange);
-                    break;
-                case "DELETE":
-                    processDelete(exchange);
-                    break;
-                default:
-                    sendMethodNotAllowed(exchange, "Данный метод не предусмотрен");
-            }
-        } catch (IllegalArgumentException e) {
+    protected final Gson gson = Managers.getGson();
+
+    // Ответ с кодом ошибки для исключения, выброшенного при обработке запроса
+    protected void sendError(HttpExchange exchange, Exception e) throws IOException {
+        if (e instanceof PayloadTooLargeException) {
+            sendText(exchange, "{\"error\": \"" + e.getMessage() + "\"}", 413);
+        } else if (e instanceof TaskTypeMismatchException) {
+            // В эндпоинт прислан объект другого типа
+            sendBadRequest(exchange, e.getMessage());
+        } else if (e instanceof IllegalArgumentException) {
             // Если задача пересекается с другими — 406
             sendHasInteractions(exchange, e.getMessage());
-        } catch (Exception e) {
+        } else {
             sendText(exchange, "{\"error\": \"" + e.getMessage() + "\"}", 500);
         }
     }
 
-    // Методы, которые по умолчанию возвращают 405, если не переопределены в наследнике.
-    protected void processGet(HttpExchange exchange) throws IOException {
-        sendMethodNotAllowed(exchange, "GET метод не предусмотрен");
+    protected void sendText(HttpExchange exchange, String text, int statusCode) throws IOException {
+        byte[] resp = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+        exchange.sendResponseHeaders(statusCode, resp.length);
+        exchange.getResponseBody().write(resp);
+        exchange.close();
     }
 
-    protected void processPost(HttpExchange exchange) throws IOException {
-        sendMethodNotAllowed(exchange, "POST метод не предусмотрен");
+    // Объект в JSON: сериализуется внутри manager.read, пока объекты менеджера не меняются
+    protected void sendJson(HttpExchange exchange, TaskManager manager, Object value, int statusCode)
+            throws IOException {
+        byte[] json = manager.read(() -> toJsonBytes(value));
+        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+        exchange.sendResponseHeaders(statusCode, json.length);
+        exchange.getResponseBody().write(json);
+        exchange.close();
     }
 
-    protected void processDelete(HttpExchange exchange) throws IOException {
-        sendMethodNotAllowed(exchange, "DELETE метод не предусмотрен");
+    // Массив JSON, не больше limit элементов, записывается в ответ по мере обхода, частями (chunked):
+    // память не зависит от размера списка, и первые байты уходят клиенту сразу. Обход идёт внутри
+    // manager.read: эпики меняются на месте, и обходить их одновременно с записью нельзя.
+    // Задачи берутся из кеша, если он задан, так что обычно в ответ просто копируются готовые массивы байт.
+    // Первый элемент сериализуется до отправки заголовков, поэтому ошибка на нём ещё становится ответом
+    // с кодом ошибки. Ошибка после заголовков пробрасывается без закрытия тела: сервер обрывает
+    // соединение, и клиент не получает завершённый ответ 200 с обрезанным массивом
+    protected void sendJsonArray(HttpExchange exchange, TaskManager manager, Supplier<? extends Iterator<?>> items,
+                                 int limit, int statusCode) throws IOException {
+        try {
+            manager.read(() -> {
+                try {
+                    writeJsonArray(exchange, items.get(), limit, statusCode);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        exchange.close();
     }
 
-    protected void sendText(HttpExchange exchange, String text, int statusCode) throws IOException {
-        byte[] resp = text.getBytes(StandardCharsets.UTF_8);
+    private void writeJsonArray(HttpExchange exchange, Iterator<?> iterator, int limit, int statusCode)
+            throws IOException {
+        byte[] first = limit > 0 && iterator.hasNext() ? toJsonBytes(iterator.next()) : null;
         exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
-        exchange.sendResponseHeaders(statusCode, resp.length);
-        exchange.getResponseBody().write(resp);
-        exchange.close();
+        // Длина 0 — тело передаётся частями
+        exchange.sendResponseHeaders(statusCode, 0);
+        OutputStream out = new BufferedOutputStream(exchange.getResponseBody(), RESPONSE_BUFFER_SIZE);
+        out.write('[');
+        if (first != null) {
+            out.write(first);
+            for (int count = 1; count < limit && iterator.hasNext(); count++) {
+                out.write(',');
+                out.write(toJsonBytes(iterator.next()));
+            }
+        }
+        out.write(']');
+        out.flush();
+    }
+
+    protected void sendJsonArray(HttpExchange exchange, TaskManager manager, Supplier<? extends Collection<?>> items,
+                                 int statusCode) throws IOException {
+        sendJsonArray(exchange, manager, () -> items.get().iterator(), Integer.MAX_VALUE, statusCode);
+    }
+
+    private byte[] toJsonBytes(Object item) {
+        if (item instanceof Task && jsonCache != null) {
+            return jsonCache.get((Task) item);
+        }
+        String json = item == null ? "null" : gson.toJson(item, item.getClass());
+        return json.getBytes(StandardCharsets.UTF_8);
     }
 
     protected void sendNotFound(HttpExchange exchange, String message) throws IOException {
@@ -65,11 +138,104 @@ public abstract class BaseHttpHandler implements com.sun.net.httpserver.HttpHand
         sendText(exchange, "{\"error\": \"" + message + "\"}", 406);
     }
 
+    protected void sendBadRequest(HttpExchange exchange, String message) throws IOException {
+        sendText(exchange, "{\"error\": \"" + message + "\"}", 400);
+    }
+
     protected void sendMethodNotAllowed(HttpExchange exchange, String message) throws IOException {
         sendText(exchange, "{\"error\": \"" + message + "\"}", 405);
     }
 
-    protected String readRequestBody(HttpExchange exchange) throws IOException {
-        return new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+    // Идентификатор клиента или null, если заголовка нет; слишком длинные значения не принимаются,
+    // чтобы ключи сессий не расходовали память
+    protected String clientId(HttpExchange exchange) {
+        String clientId = exchange.getRequestHeaders().getFirst(CLIENT_ID_HEADER);
+        if (clientId == null || clientId.isEmpty() || clientId.length() > MAX_CLIENT_ID_LENGTH) {
+            return null;
+        }
+        return clientId;
+    }
+
+    // Параметры строки запроса; при повторе параметра берётся последнее значение
+    protected Map<String, String> readQueryParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    public void setJsonCache(JsonFragmentCache jsonCache) {
+        this.jsonCache = jsonCache;
+    }
+
+    public void setMaxBodySize(long maxBodySize) {
+        if (maxBodySize < 1) {
+            throw new IllegalArgumentException("Размер тела запроса должен быть положительным.");
+        }
+        this.maxBodySize = maxBodySize;
+    }
+
+    // Тело запроса разбирается прямо из потока, без промежуточных byte[] и String. Запрос с заявленной
+    // длиной больше maxBodySize отклоняется до чтения, тело без длины (chunked) — как только превысит лимит
+    protected <T> T readJson(HttpExchange exchange, Class<T> type) {
+        String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (contentLength != null) {
+            long length;
+            try {
+                length = Long.parseLong(contentLength.trim());
+            } catch (NumberFormatException e) {
+                length = 0;
+            }
+            if (length > maxBodySize) {
+                throw new PayloadTooLargeException("Тело запроса больше " + maxBodySize + " байт");
+            }
+        }
+        Reader reader = new InputStreamReader(new LimitedBody(exchange.getRequestBody(), maxBodySize),
+                StandardCharsets.UTF_8);
+        return gson.fromJson(reader, type);
+    }
+
+    // Поток тела запроса, который обрывается исключением после maxBodySize байт
+    private static final class LimitedBody extends FilterInputStream {
+        private final long maxBodySize;
+        private long read;
+
+        LimitedBody(InputStream in, long maxBodySize) {
+            super(in);
+            this.maxBodySize = maxBodySize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) {
+            read += n;
+            if (read > maxBodySize) {
+                throw new PayloadTooLargeException("Тело запроса больше " + maxBodySize + " байт");
+            }
+        }
     }
 }
@@ -1,81 +1,86 @@
 package tasktracker.http.handlers;
 
 import com.sun.net.httpserver.HttpExchange;
+import tasktracker.http.Router;
+import tasktracker.manager.SessionHistoryManager;
 import tasktracker.manager.TaskManager;
 import tasktracker.tasks.Epic;
+import tasktracker.tasks.Subtask;
 
 import java.io.IOException;
 
 public class EpicHandler extends BaseHttpHandler {
     private final TaskManager taskManager;
+    private final SessionHistoryManager sessions;
 
-    public EpicHandler(TaskManager taskManager) {
+    public EpicHandler(TaskManager taskManager, SessionHistoryManager sessions) {
         this.taskManager = taskManager;
+        this.sessions = sessions;
     }
 
-    @Override
-    protected void processGet(HttpExchange exchange) throws IOException {
-        String path = exchange.getRequestURI().getPath();
-        if ("/epics".equals(path)) {
-            sendText(exchange, gson.toJson(taskManager.getAllEpics()), 200);
-        } else if (path.matches("/epics/\\d+")) {
-            int epicId = Integer.parseInt(path.split("/")[2]);
-            Epic epic = taskManager.getEpicById(epicId);
-            if (epic == null) {
-                sendNotFound(exchange, "Эпик не найден");
-            } else {
-                sendText(exchange, gson.toJson(epic), 200);
-            }
-        } else if (path.matches("/epics/\\d+/subtasks")) {
-            int epicId = Integer.parseInt(path.split("/")[2]);
-            Epic epic = taskManager.getEpicById(epicId);
-            if (epic == null) {
-                sendNotFound(exchange, "Эпик не найден");
-            } else {
-                sendText(exchange, gson.toJson(taskManager.getSubtasksOfEpic(epicId)), 200);
-            }
+    public void register(Router router) {
+        router.get("/epics", this::getAll)
+                .post("/epics", this::save)
+                .get("/epics/{id:int}", this::getById)
+                .delete("/epics/{id:int}", this::deleteById)
+                .get("/epics/{id:int}/subtasks", this::getSubtasks);
+    }
+
+    private void getAll(HttpExchange exchange, Router.PathParams params) throws IOException {
+        sendJsonArray(exchange, taskManager, taskManager::getAllEpics, 200);
+    }
+
+    private void getById(HttpExchange exchange, Router.PathParams params) throws IOException {
+        Epic epic = taskManager.getEpicById(params.getInt("id"));
+        if (epic == null) {
+            sendNotFound(exchange, "Эпик не найден");
         } else {
-            sendNotFound(exchange, "Эндпоинт не найден");
+            sessions.add(clientId(exchange), epic);
+            sendJson(exchange, taskManager, epic, 200);
         }
     }
 
-    @Override
-    protected void processPost(HttpExchange exchange) throws IOException {
-        String path = exchange.getRequestURI().getPath();
-        if ("/epics".equals(path)) {
-            String body = readRequestBody(exchange);
-            Epic epic = gson.fromJson(body, Epic.class);
-            if (epic.getId() == 0) {
-                taskManager.createEpic(epic);
-                sendText(exchange, gson.toJson(epic), 201);
-            } else {
-                Epic existing = taskManager.getEpicById(epic.getId());
-                if (existing == null) {
-                    sendNotFound(exchange, "Эпик не найден");
-                    return;
-                }
-                taskManager.updateEpic(epic);
-                sendText(exchange, gson.toJson(epic), 200);
-            }
+    private void getSubtasks(HttpExchange exchange, Router.PathParams params) throws IOException {
+        int epicId = params.getInt("id");
+        if (!taskManager.containsEpic(epicId)) {
+            sendNotFound(exchange, "Эпик не найден");
         } else {
-            sendNotFound(exchange, "Эндпоинт не найден");
+            sendJsonArray(exchange, taskManager, () -> taskManager.getSubtasksOfEpic(epicId), 200);
         }
     }
 
-    @Override
-    protected void processDelete(HttpExchange exchange) throws IOException {
-        String path = exchange.getRequestURI().getPath();
-        if (path.matches("/epics/\\d+")) {
-            int epicId = Integer.parseInt(path.split("/")[2]);
-            Epic epic = taskManager.getEpicById(epicId);
-            if (epic == null) {
+    private void save(HttpExchange exchange, Router.PathParams params) throws IOException {
+        Epic epic = readJson(exchange, Epic.class);
+        // Поле type может указать другой подтип, а в этот эндпоинт принимается только Epic
+        if (epic.getClass() != Epic.class) {
+            sendBadRequest(exchange, "Ожидался эпик, а не " + epic.getClass().getSimpleName());
+            return;
+        }
+        if (epic.getId() == 0) {
+            taskManager.createEpic(epic);
+            sendJson(exchange, taskManager, epic, 201);
+        } else {
+            if (!taskManager.containsEpic(epic.getId())) {
                 sendNotFound(exchange, "Эпик не найден");
-            } else {
-                taskManager.deleteEpicById(epicId);
-                sendText(exchange, "{}", 200);
+                return;
             }
+            taskManager.updateEpic(epic);
+            sendJson(exchange, taskManager, epic, 200);
+        }
+    }
+
+    private void deleteById(HttpExchange exchange, Router.PathParams params) throws IOException {
+        int epicId = params.getInt("id");
+        if (!taskManager.containsEpic(epicId)) {
+            sendNotFound(exchange, "Эпик не найден");
         } else {
-            sendNotFound(exchange, "Эндпоинт не найден");
+            // Вместе с эпиком удаляются его подзадачи, их тоже нужно убрать из историй
+            for (Subtask subtask : taskManager.getSubtasksOfEpic(epicId)) {
+                sessions.remove(subtask.getId());
+            }
+            taskManager.deleteEpicById(epicId);
+            sessions.remove(epicId);
+            sendText(exchange, "{}", 200);
         }
     }
 }
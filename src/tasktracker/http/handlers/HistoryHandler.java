@@ -1,20 +1,49 @@
 package tasktracker.http.handlers;
 
 import com.sun.net.httpserver.HttpExchange;
+import tasktracker.http.Router;
+import tasktracker.manager.SessionHistoryManager;
 import tasktracker.manager.TaskManager;
 
 import java.io.IOException;
+import java.util.Map;
 
 public class HistoryHandler extends BaseHttpHandler {
     private final TaskManager taskManager;
+    private final SessionHistoryManager sessions;
 
-    public HistoryHandler(TaskManager taskManager) {
+    public HistoryHandler(TaskManager taskManager, SessionHistoryManager sessions) {
         this.taskManager = taskManager;
+        this.sessions = sessions;
     }
 
-    @Override
-    protected void processGet(HttpExchange exchange) throws IOException {
-        sendText(exchange, gson.toJson(taskManager.getHistory()), 200);
+    // POST и DELETE для этого пути вернут 405
+    public void register(Router router) {
+        router.get("/history", this::get);
+    }
+
+    // GET /history — вся история; GET /history?limit=N — последние N просмотров.
+    // С заголовком X-Client-Id возвращается история этого клиента, без него — общая история менеджера
+    private void get(HttpExchange exchange, Router.PathParams pathParams) throws IOException {
+        Map<String, String> params = readQueryParams(exchange);
+        String clientId = clientId(exchange);
+        if (!params.containsKey("limit")) {
+            sendJsonArray(exchange, taskManager,
+                    () -> clientId != null ? sessions.getHistory(clientId) : taskManager.getHistory(), 200);
+            return;
+        }
+        int limit;
+        try {
+            limit = Integer.parseInt(params.get("limit"));
+        } catch (NumberFormatException e) {
+            limit = -1;
+        }
+        if (limit < 0) {
+            sendBadRequest(exchange, "Некорректные параметры запроса");
+            return;
+        }
+        int historyLimit = limit;
+        sendJsonArray(exchange, taskManager, () -> clientId != null
+                ? sessions.getHistory(clientId, historyLimit) : taskManager.getHistory(historyLimit), 200);
     }
-    // POST и DELETE не переопределяем, они вернут 405 по умолчанию.
 }
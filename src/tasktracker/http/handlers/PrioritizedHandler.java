@@ -1,9 +1,13 @@
 package tasktracker.http.handlers;
 
 import com.sun.net.httpserver.HttpExchange;
+import tasktracker.http.Router;
 import tasktracker.manager.TaskManager;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
 
 public class PrioritizedHandler extends BaseHttpHandler {
     private final TaskManager taskManager;
@@ -12,9 +16,40 @@ public class PrioritizedHandler extends BaseHttpHandler {
         this.taskManager = taskManager;
     }
 
-    @Override
-    protected void processGet(HttpExchange exchange) throws IOException {
-        sendText(exchange, gson.toJson(taskManager.getPrioritizedTasks()), 200);
+    // POST и DELETE для этого пути вернут 405
+    public void register(Router router) {
+        router.get("/prioritized", this::get);
+    }
+
+    // GET /prioritized — весь список; GET /prioritized?from=&to=&limit= — окно расписания,
+    // время в формате ISO (2024-01-01T09:00), любой параметр можно опустить
+    private void get(HttpExchange exchange, Router.PathParams pathParams) throws IOException {
+        Map<String, String> params = readQueryParams(exchange);
+        if (params.isEmpty()) {
+            sendJsonArray(exchange, taskManager, taskManager::getPrioritizedTasks, 200);
+            return;
+        }
+
+        LocalDateTime from;
+        LocalDateTime to;
+        int limit;
+        try {
+            from = params.containsKey("from") ? LocalDateTime.parse(params.get("from")) : null;
+            to = params.containsKey("to") ? LocalDateTime.parse(params.get("to")) : null;
+            limit = params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : Integer.MAX_VALUE;
+        } catch (DateTimeParseException | NumberFormatException e) {
+            sendBadRequest(exchange, "Некорректные параметры запроса");
+            return;
+        }
+        if (limit < 0 || (from != null && to != null && from.isAfter(to))) {
+            sendBadRequest(exchange, "Некорректные параметры запроса");
+            return;
+        }
+
+        // Лимит передаётся менеджеру: обход окна останавливается на limit задачах и под блокировкой
+        LocalDateTime windowFrom = from;
+        LocalDateTime windowTo = to;
+        int windowLimit = limit;
+        sendJsonArray(exchange, taskManager, () -> taskManager.getTasksBetween(windowFrom, windowTo, windowLimit), 200);
     }
-    // POST и DELETE не переопределяем, они вернут 405 по умолчанию.
 }
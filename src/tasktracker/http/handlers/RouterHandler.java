@@ -0,0 +1,44 @@
+package tasktracker.http.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import tasktracker.http.Router;
+
+import java.io.IOException;
+
+// Единая точка входа сервера: запрос передаётся обработчику маршрута с уже разобранными параметрами пути
+public class RouterHandler extends BaseHttpHandler implements HttpHandler {
+    private final Router router;
+
+    public RouterHandler(Router router) {
+        this.router = router;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            dispatch(exchange);
+        } catch (Exception e) {
+            if (exchange.getResponseCode() != -1) {
+                // Заголовки уже отправлены, и код ответа не изменить. Исключение пробрасывается серверу,
+                // он обрывает соединение, и клиент видит незавершённый ответ
+                throw e;
+            }
+            sendError(exchange, e);
+        }
+    }
+
+    private void dispatch(HttpExchange exchange) throws IOException {
+        Router.Match match = router.find(exchange.getRequestMethod(), exchange.getRequestURI().getPath());
+        switch (match.getStatus()) {
+            case FOUND:
+                match.getRoute().handle(exchange, match.getParams());
+                break;
+            case METHOD_NOT_ALLOWED:
+                sendMethodNotAllowed(exchange, "Данный метод не предусмотрен");
+                break;
+            default:
+                sendNotFound(exchange, "Эндпоинт не найден");
+        }
+    }
+}
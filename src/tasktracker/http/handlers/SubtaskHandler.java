@@ -1,6 +1,8 @@
 package tasktracker.http.handlers;
 
 import com.sun.net.httpserver.HttpExchange;
+import tasktracker.http.Router;
+import tasktracker.manager.SessionHistoryManager;
 import tasktracker.manager.TaskManager;
 import tasktracker.tasks.Subtask;
 
@@ -8,66 +10,62 @@ import java.io.IOException;
 
 public class SubtaskHandler extends BaseHttpHandler {
     private final TaskManager taskManager;
+    private final SessionHistoryManager sessions;
 
-    public SubtaskHandler(TaskManager taskManager) {
+    public SubtaskHandler(TaskManager taskManager, SessionHistoryManager sessions) {
         this.taskManager = taskManager;
+        this.sessions = sessions;
     }
 
-    @Override
-    protected void processGet(HttpExchange exchange) throws IOException {
-        String path = exchange.getRequestURI().getPath();
-        if ("/subtasks".equals(path)) {
-            sendText(exchange, gson.toJson(taskManager.getAllSubtasks()), 200);
-        } else if (path.matches("/subtasks/\\d+")) {
-            int subtaskId = Integer.parseInt(path.split("/")[2]);
-            Subtask subtask = taskManager.getSubtaskById(subtaskId);
-            if (subtask == null) {
-                sendNotFound(exchange, "Подзадача не найдена");
-            } else {
-                sendText(exchange, gson.toJson(subtask), 200);
-            }
-        } else {
-            sendNotFound(exchange, "Эндпоинт не найден");
-        }
+    public void register(Router router) {
+        router.get("/subtasks", this::getAll)
+                .post("/subtasks", this::save)
+                .get("/subtasks/{id:int}", this::getById)
+                .delete("/subtasks/{id:int}", this::deleteById);
     }
 
-    @Override
-    protected void processPost(HttpExchange exchange) throws IOException {
-        String path = exchange.getRequestURI().getPath();
-        if ("/subtasks".equals(path)) {
-            String body = readRequestBody(exchange);
-            Subtask subtask = gson.fromJson(body, Subtask.class);
-            if (subtask.getId() == 0) {
-                taskManager.createSubtask(subtask);
-                sendText(exchange, gson.toJson(subtask), 201);
-            } else {
-                Subtask existing = taskManager.getSubtaskById(subtask.getId());
-                if (existing == null) {
-                    sendNotFound(exchange, "Subtask not found");
-                    return;
-                }
-                taskManager.updateSubtask(subtask);
-                sendText(exchange, gson.toJson(subtask), 200);
-            }
+    private void getAll(HttpExchange exchange, Router.PathParams params) throws IOException {
+        sendJsonArray(exchange, taskManager, taskManager::getAllSubtasks, 200);
+    }
+
+    private void getById(HttpExchange exchange, Router.PathParams params) throws IOException {
+        Subtask subtask = taskManager.getSubtaskById(params.getInt("id"));
+        if (subtask == null) {
+            sendNotFound(exchange, "Подзадача не найдена");
         } else {
-            sendNotFound(exchange, "Endpoint not found");
+            sessions.add(clientId(exchange), subtask);
+            sendJson(exchange, taskManager, subtask, 200);
         }
     }
 
-    @Override
-    protected void processDelete(HttpExchange exchange) throws IOException {
-        String path = exchange.getRequestURI().getPath();
-        if (path.matches("/subtasks/\\d+")) {
-            int subtaskId = Integer.parseInt(path.split("/")[2]);
-            Subtask subtask = taskManager.getSubtaskById(subtaskId);
-            if (subtask == null) {
+    private void save(HttpExchange exchange, Router.PathParams params) throws IOException {
+        Subtask subtask = readJson(exchange, Subtask.class);
+        // Поле type может указать другой подтип, а в этот эндпоинт принимается только Subtask
+        if (subtask.getClass() != Subtask.class) {
+            sendBadRequest(exchange, "Ожидалась подзадача, а не " + subtask.getClass().getSimpleName());
+            return;
+        }
+        if (subtask.getId() == 0) {
+            taskManager.createSubtask(subtask);
+            sendJson(exchange, taskManager, subtask, 201);
+        } else {
+            if (!taskManager.containsSubtask(subtask.getId())) {
                 sendNotFound(exchange, "Subtask not found");
-            } else {
-                taskManager.deleteSubtaskById(subtaskId);
-                sendText(exchange, "{}", 200);
+                return;
             }
+            taskManager.updateSubtask(subtask);
+            sendJson(exchange, taskManager, subtask, 200);
+        }
+    }
+
+    private void deleteById(HttpExchange exchange, Router.PathParams params) throws IOException {
+        int subtaskId = params.getInt("id");
+        if (!taskManager.containsSubtask(subtaskId)) {
+            sendNotFound(exchange, "Subtask not found");
         } else {
-            sendNotFound(exchange, "Endpoint not found");
+            taskManager.deleteSubtaskById(subtaskId);
+            sessions.remove(subtaskId);
+            sendText(exchange, "{}", 200);
         }
     }
 }
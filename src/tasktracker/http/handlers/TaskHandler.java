@@ -1,6 +1,8 @@
 package tasktracker.http.handlers;
 
 import com.sun.net.httpserver.HttpExchange;
+import tasktracker.http.Router;
+import tasktracker.manager.SessionHistoryManager;
 import tasktracker.manager.TaskManager;
 import tasktracker.tasks.Task;
 
@@ -8,69 +10,65 @@ import java.io.IOException;
 
 public class TaskHandler extends BaseHttpHandler {
     private final TaskManager taskManager;
+    private final SessionHistoryManager sessions;
 
-    public TaskHandler(TaskManager taskManager) {
+    public TaskHandler(TaskManager taskManager, SessionHistoryManager sessions) {
         this.taskManager = taskManager;
+        this.sessions = sessions;
     }
 
-    @Override
-    protected void processGet(HttpExchange exchange) throws IOException {
-        String path = exchange.getRequestURI().getPath();
-        if ("/tasks".equals(path)) {
-            sendText(exchange, gson.toJson(taskManager.getAllTasks()), 200);
-        } else if (path.matches("/tasks/\\d+")) {
-            int taskId = Integer.parseInt(path.split("/")[2]);
-            Task task = taskManager.getTaskById(taskId);
-            if (task != null) {
-                sendText(exchange, gson.toJson(task), 200);
-            } else {
-                sendNotFound(exchange, "Задача не найдена");
-            }
-        } else {
-            sendNotFound(exchange, "Эндпоинт не найден");
-        }
+    public void register(Router router) {
+        router.get("/tasks", this::getAll)
+                .post("/tasks", this::save)
+                .get("/tasks/{id:int}", this::getById)
+                .delete("/tasks/{id:int}", this::deleteById);
     }
 
-    @Override
-    protected void processPost(HttpExchange exchange) throws IOException {
-        String path = exchange.getRequestURI().getPath();
-        if ("/tasks".equals(path)) {
-            String body = readRequestBody(exchange);
-            Task task = gson.fromJson(body, Task.class);
+    private void getAll(HttpExchange exchange, Router.PathParams params) throws IOException {
+        sendJsonArray(exchange, taskManager, taskManager::getAllTasks, 200);
+    }
 
-            if (task.getId() == 0) {
-                // Создаем новую задачу
-                taskManager.createTask(task);
-                sendText(exchange, gson.toJson(task), 201);
-            } else {
-                // Обновляем существующую задачу
-                Task existing = taskManager.getTaskById(task.getId());
-                if (existing == null) {
-                    sendNotFound(exchange, "Задача не найдена");
-                    return;
-                }
-                taskManager.updateTask(task);
-                sendText(exchange, gson.toJson(task), 200);
-            }
+    private void getById(HttpExchange exchange, Router.PathParams params) throws IOException {
+        Task task = taskManager.getTaskById(params.getInt("id"));
+        if (task != null) {
+            sessions.add(clientId(exchange), task);
+            sendJson(exchange, taskManager, task, 200);
         } else {
-            sendNotFound(exchange, "Эндпоинт не найден");
+            sendNotFound(exchange, "Задача не найдена");
         }
     }
 
-    @Override
-    protected void processDelete(HttpExchange exchange) throws IOException {
-        String path = exchange.getRequestURI().getPath();
-        if (path.matches("/tasks/\\d+")) {
-            int taskId = Integer.parseInt(path.split("/")[2]);
-            Task task = taskManager.getTaskById(taskId);
-            if (task == null) {
+    private void save(HttpExchange exchange, Router.PathParams params) throws IOException {
+        Task task = readJson(exchange, Task.class);
+        // Поле type может указать другой подтип, а в этот эндпоинт принимается только Task
+        if (task.getClass() != Task.class) {
+            sendBadRequest(exchange, "Ожидалась задача, а не " + task.getClass().getSimpleName());
+            return;
+        }
+
+        if (task.getId() == 0) {
+            // Создаем новую задачу
+            taskManager.createTask(task);
+            sendJson(exchange, taskManager, task, 201);
+        } else {
+            // Обновляем существующую задачу
+            if (!taskManager.containsTask(task.getId())) {
                 sendNotFound(exchange, "Задача не найдена");
-            } else {
-                taskManager.deleteTaskById(taskId);
-                sendText(exchange, "{}", 200);
+                return;
             }
+            taskManager.updateTask(task);
+            sendJson(exchange, taskManager, task, 200);
+        }
+    }
+
+    private void deleteById(HttpExchange exchange, Router.PathParams params) throws IOException {
+        int taskId = params.getInt("id");
+        if (!taskManager.containsTask(taskId)) {
+            sendNotFound(exchange, "Задача не найдена");
         } else {
-            sendNotFound(exchange, "Эндпоинт не найден");
+            taskManager.deleteTaskById(taskId);
+            sessions.remove(taskId);
+            sendText(exchange, "{}", 200);
         }
     }
 }
@@ -0,0 +1,323 @@
+package tasktracker.manager;
+
+import tasktracker.tasks.Task;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+// История, в которую просмотры записываются асинхронно: add и remove только публикуют событие
+// в кольцевой буфер без блокировок (ограниченная очередь Вьюкова с порядковым номером в каждой ячейке),
+// а единственный поток-потребитель применяет события к обычной истории. Читающие потоки никогда
+// не ждут историю. getHistory согласован в конечном счёте: пока события идут, потребитель проверяет
+// буфер не реже чем раз в maxLag и производители его не будят; если за maxLag событий не пришло,
+// он засыпает без таймера, и его будит первое следующее событие. Фактическое отставание видно
+// через maxObservedLag. События, опубликованные одновременно с close, применяются после остановки
+// потребителя закрывающим потоком или самим производителем.
+public class AsyncHistoryManager implements HistoryManager, AutoCloseable {
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 14;
+    public static final Duration DEFAULT_MAX_LAG = Duration.ofMillis(10);
+
+    private final HistoryManager delegate;
+    private final int mask;
+    // sequences[i] == позиция записи: ячейка свободна для неё; == позиция + 1: событие опубликовано
+    private final AtomicLongArray sequences;
+    private final Event[] events;
+    private final AtomicLong enqueuePosition = new AtomicLong();
+    // Позиция, до которой события уже применены; пишет только потребитель
+    private final AtomicLong appliedPosition = new AtomicLong();
+    private final long maxLagNanos;
+    private final Thread consumer;
+    private volatile boolean running = true;
+    // Потребитель спит без таймера и ждёт, что его разбудит производитель
+    private volatile boolean sleeping;
+    private volatile boolean consumerStopped;
+
+    // Ожидание свободной ячейки для удаления; потребитель сигналит, только если кто-то ждёт
+    private final ReentrantLock spaceLock = new ReentrantLock();
+    private final Condition spaceAvailable = spaceLock.newCondition();
+    private volatile int waitingRemovals;
+
+    private final AtomicLong droppedViews = new AtomicLong();
+    private volatile long maxObservedLagNanos;
+
+    private static final class Event {
+        final Task task;
+        final int removedId;
+        final long publishedAt;
+
+        Event(Task task, int removedId) {
+            this.task = task;
+            this.removedId = removedId;
+            this.publishedAt = System.nanoTime();
+        }
+    }
+
+    public AsyncHistoryManager(HistoryManager delegate) {
+        this(delegate, DEFAULT_BUFFER_SIZE, DEFAULT_MAX_LAG);
+    }
+
+    public AsyncHistoryManager(HistoryManager delegate, int bufferSize, Duration maxLag) {
+        if (bufferSize < 2 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("Размер буфера должен быть степенью двойки.");
+        }
+        if (maxLag.isNegative() || maxLag.isZero()) {
+            throw new IllegalArgumentException("Допустимое отставание должно быть положительным.");
+        }
+        this.delegate = delegate;
+        this.mask = bufferSize - 1;
+        this.sequences = new AtomicLongArray(bufferSize);
+        this.events = new Event[bufferSize];
+        for (int i = 0; i < bufferSize; i++) {
+            sequences.set(i, i);
+        }
+        this.maxLagNanos = maxLag.toNanos();
+        this.consumer = new Thread(this::consume, "history-consumer");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    // Просмотр при заполненном буфере отбрасывается: читающий поток не должен ждать историю
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        if (!running) {
+            // После закрытия события применяются сразу
+            delegate.add(task);
+            return;
+        }
+        if (offer(new Event(task, 0))) {
+            published();
+        } else {
+            droppedViews.incrementAndGet();
+        }
+    }
+
+    // Удаление терять нельзя, поэтому при заполненном буфере поток засыпает до освобождения ячейки.
+    // Удаления идут из изменяющих операций и могут ждать под блокировкой записи ConcurrentTaskManager;
+    // потребителю эта блокировка не нужна, так что ожидание ограничено скоростью применения событий
+    @Override
+    public void remove(int id) {
+        if (!running) {
+            delegate.remove(id);
+            return;
+        }
+        Event event = new Event(null, id);
+        while (!offer(event)) {
+            awaitSpace();
+        }
+        published();
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return delegate.getHistory();
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        return delegate.getHistory(limit);
+    }
+
+    @Override
+    public int getCapacity() {
+        return delegate.getCapacity();
+    }
+
+    // Ожидание, пока будут применены все события, опубликованные до вызова
+    @Override
+    public void flush() {
+        long target = enqueuePosition.get();
+        while (appliedPosition.get() < target) {
+            if (consumerStopped) {
+                if (running) {
+                    throw new IllegalStateException("Поток истории остановлен.");
+                }
+                drainAfterClose();
+                continue;
+            }
+            LockSupport.unpark(consumer);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(consumer);
+        signalSpace();
+        drainAfterClose();
+    }
+
+    // Сколько событий опубликовано, но ещё не применено
+    public long pendingEvents() {
+        return enqueuePosition.get() - appliedPosition.get();
+    }
+
+    // Просмотры, отброшенные из-за заполненного буфера
+    public long droppedViews() {
+        return droppedViews.get();
+    }
+
+    // Наибольшее время от публикации события до его применения
+    public Duration maxObservedLag() {
+        return Duration.ofNanos(maxObservedLagNanos);
+    }
+
+    private boolean offer(Event event) {
+        while (true) {
+            long position = enqueuePosition.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (enqueuePosition.compareAndSet(position, position + 1)) {
+                    events[index] = event;
+                    // Публикация: запись в AtomicLongArray упорядочивает запись события перед собой
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                // Ячейка ещё занята событием, которое потребитель не успел забрать: буфер полон
+                return false;
+            }
+            // Иначе другой поток уже занял эту позицию, пробуем следующую
+        }
+    }
+
+    // После публикации: будим уснувшего потребителя, а если менеджер уже закрыт — применяем событие сами
+    private void published() {
+        if (sleeping) {
+            LockSupport.unpark(consumer);
+        }
+        if (!running) {
+            drainAfterClose();
+        }
+    }
+
+    private boolean isFull() {
+        long position = enqueuePosition.get();
+        return sequences.get((int) position & mask) - position < 0;
+    }
+
+    private void awaitSpace() {
+        spaceLock.lock();
+        try {
+            waitingRemovals++;
+            LockSupport.unpark(consumer);
+            while (running && isFull()) {
+                if (consumerStopped) {
+                    throw new IllegalStateException("Поток истории остановлен.");
+                }
+                spaceAvailable.awaitUninterruptibly();
+            }
+        } finally {
+            waitingRemovals--;
+            spaceLock.unlock();
+        }
+        if (!running) {
+            // Потребитель остановлен, ячейки освобождает применение оставшихся событий
+            drainAfterClose();
+        }
+    }
+
+    private void signalSpace() {
+        spaceLock.lock();
+        try {
+            spaceAvailable.signalAll();
+        } finally {
+            spaceLock.unlock();
+        }
+    }
+
+    // Применение событий, оставшихся после остановки потребителя. Монитор делает вызывающий поток
+    // единственным потребителем; событие, позиция которого занята, но ещё не записана, дожидаемся
+    private synchronized void drainAfterClose() {
+        boolean interrupted = false;
+        while (consumer.isAlive()) {
+            try {
+                consumer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        long position = appliedPosition.get();
+        while (position < enqueuePosition.get()) {
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) {
+                Thread.onSpinWait();
+                continue;
+            }
+            position = take(index, position);
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void consume() {
+        try {
+            long position = 0;
+            boolean active = false;
+            while (true) {
+                int index = (int) position & mask;
+                if (sequences.get(index) == position + 1) {
+                    position = take(index, position);
+                    active = true;
+                } else if (!running) {
+                    if (position == enqueuePosition.get()) {
+                        // Остановка: всё опубликованное применено
+                        return;
+                    }
+                    // Позиция занята производителем, но событие ещё не записано
+                    Thread.onSpinWait();
+                } else if (active) {
+                    // Пока события идут, ждём следующие не дольше maxLag, не заставляя производителей будить
+                    active = false;
+                    LockSupport.parkNanos(maxLagNanos);
+                } else {
+                    // Простой: спим до первого события. Флаг ставится до повторной проверки ячейки,
+                    // поэтому производитель, опубликовавший событие после проверки, увидит флаг и разбудит
+                    sleeping = true;
+                    if (sequences.get(index) != position + 1 && running) {
+                        LockSupport.park(this);
+                    }
+                    sleeping = false;
+                }
+            }
+        } finally {
+            consumerStopped = true;
+            signalSpace();
+        }
+    }
+
+    private long take(int index, long position) {
+        Event event = events[index];
+        events[index] = null;
+        sequences.set(index, position + mask + 1);
+        apply(event);
+        appliedPosition.set(position + 1);
+        if (waitingRemovals > 0) {
+            signalSpace();
+        }
+        return position + 1;
+    }
+
+    private void apply(Event event) {
+        if (event.task != null) {
+            delegate.add(event.task);
+        } else {
+            delegate.remove(event.removedId);
+        }
+        long lag = System.nanoTime() - event.publishedAt;
+        if (lag > maxObservedLagNanos) {
+            maxObservedLagNanos = lag;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package tasktracker.manager;
+
+import tasktracker.status.TaskStatus;
+import tasktracker.tasks.Epic;
+import tasktracker.tasks.Subtask;
+import tasktracker.tasks.Task;
+import tasktracker.tasks.TaskType;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+// Двоичный снимок менеджера (big-endian):
+// заголовок — "TKBS", версия, следующий id, число задач, эпиков, подзадач и строк;
+// таблица строк — длина и байты UTF-8 каждой строки, одинаковые названия и описания хранятся один раз;
+// записи по 40 байт — id, тип, статус, номера названия и описания в таблице, id эпика,
+// длительность в минутах, время начала в секундах от 1970-01-01T00:00 и наносекунды;
+// с версии 2 в конце — CRC32 всех предыдущих байт.
+// При загрузке ничего не разбирается из текста: строки копируются из таблицы, поля записей читаются по смещению.
+final class BinarySnapshot {
+    static final int MAGIC = 0x544B4253;
+    static final int VERSION = 2;
+    // Версия без контрольной суммы в конце файла
+    private static final int VERSION_WITHOUT_CHECKSUM = 1;
+    private static final int HEADER_SIZE = 28;
+    private static final int RECORD_SIZE = 40;
+    // Отсутствующие длительность, время начала, строка или эпик
+    private static final long NONE = Long.MIN_VALUE;
+    private static final int NO_STRING = -1;
+    private static final int NO_EPIC = 0;
+
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    // Содержимое прочитанного снимка
+    static final class Contents {
+        final List<Task> tasks;
+        final int nextId;
+
+        Contents(List<Task> tasks, int nextId) {
+            this.tasks = tasks;
+            this.nextId = nextId;
+        }
+    }
+
+    private BinarySnapshot() {
+    }
+
+    // Начинается ли содержимое с метки двоичного снимка
+    static boolean matches(ByteBuffer header) {
+        return header.remaining() >= Integer.BYTES && header.getInt(header.position()) == MAGIC;
+    }
+
+    static void write(OutputStream stream, int nextId, List<Task> tasks, List<Epic> epics,
+                      List<Subtask> subtasks) throws IOException {
+        Map<String, Integer> indexes = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        List<Task> records = new ArrayList<>(tasks.size() + epics.size() + subtasks.size());
+        records.addAll(tasks);
+        records.addAll(epics);
+        records.addAll(subtasks);
+        for (Task task : records) {
+            intern(task.getTitle(), indexes, strings);
+            intern(task.getDescription(), indexes, strings);
+        }
+
+        CRC32 checksum = new CRC32();
+        DataOutputStream out = new DataOutputStream(new CheckedOutputStream(stream, checksum));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(nextId);
+        out.writeInt(tasks.size());
+        out.writeInt(epics.size());
+        out.writeInt(subtasks.size());
+        out.writeInt(strings.size());
+        for (byte[] bytes : strings) {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        for (Task task : records) {
+            TaskType type = typeOf(task);
+            out.writeInt(task.getId());
+            out.writeByte(type.ordinal());
+            out.writeByte(task.getStatus() != null ? task.getStatus().ordinal() : TaskStatus.NEW.ordinal());
+            out.writeShort(0);
+            out.writeInt(indexOf(task.getTitle(), indexes));
+            out.writeInt(indexOf(task.getDescription(), indexes));
+            out.writeInt(task instanceof Subtask ? ((Subtask) task).getEpicId() : NO_EPIC);
+            // Время эпика вычисляется по подзадачам и не сохраняется
+            boolean timed = type != TaskType.EPIC;
+            Duration duration = timed ? task.getDuration() : null;
+            LocalDateTime startTime = timed ? task.getStartTime() : null;
+            out.writeLong(duration != null ? duration.toMinutes() : NONE);
+            out.writeLong(startTime != null ? startTime.toEpochSecond(ZoneOffset.UTC) : NONE);
+            out.writeInt(startTime != null ? startTime.getNano() : 0);
+        }
+        out.writeInt((int) checksum.getValue());
+        out.flush();
+    }
+
+    // Чтение снимка из буфера (обычно отображённого в память файла) начиная с позиции 0
+    static Contents read(ByteBuffer buffer) {
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Файл не является двоичным снимком.");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION && version != VERSION_WITHOUT_CHECKSUM) {
+            throw new IllegalArgumentException("Неподдерживаемая версия двоичного снимка: " + version);
+        }
+        int end = buffer.limit();
+        if (version == VERSION) {
+            end -= Integer.BYTES;
+            CRC32 checksum = new CRC32();
+            checksum.update(buffer.duplicate().position(0).limit(end));
+            if (end < HEADER_SIZE || buffer.getInt(end) != (int) checksum.getValue()) {
+                throw new IllegalArgumentException("Снимок повреждён: контрольная сумма не совпадает.");
+            }
+        }
+        int nextId = buffer.getInt(8);
+        int taskCount = buffer.getInt(12);
+        int epicCount = buffer.getInt(16);
+        int subtaskCount = buffer.getInt(20);
+        int stringCount = buffer.getInt(24);
+        if (taskCount < 0 || epicCount < 0 || subtaskCount < 0 || stringCount < 0) {
+            throw new IllegalArgumentException("Повреждён заголовок двоичного снимка.");
+        }
+
+        String[] strings = new String[stringCount];
+        int offset = HEADER_SIZE;
+        for (int i = 0; i < stringCount; i++) {
+            if (offset + Integer.BYTES > end) {
+                throw new IllegalArgumentException("Повреждена таблица строк двоичного снимка.");
+            }
+            int length = buffer.getInt(offset);
+            offset += Integer.BYTES;
+            if (length < 0 || length > end - offset) {
+                throw new IllegalArgumentException("Повреждена таблица строк двоичного снимка.");
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(offset, bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            offset += length;
+        }
+
+        long recordCount = (long) taskCount + epicCount + subtaskCount;
+        if (end - offset != recordCount * RECORD_SIZE) {
+            throw new IllegalArgumentException("Размер двоичного снимка не совпадает с заголовком.");
+        }
+        List<Task> tasks = new ArrayList<>((int) recordCount);
+        for (int i = 0; i < recordCount; i++, offset += RECORD_SIZE) {
+            tasks.add(readRecord(buffer, offset, strings));
+        }
+        return new Contents(tasks, nextId);
+    }
+
+    private static Task readRecord(ByteBuffer buffer, int offset, String[] strings) {
+        int id = buffer.getInt(offset);
+        int type = buffer.get(offset + 4);
+        int status = buffer.get(offset + 5);
+        if (type < 0 || type >= TYPES.length || status < 0 || status >= STATUSES.length) {
+            throw new IllegalArgumentException("Некорректная запись двоичного снимка: id " + id);
+        }
+        String title = string(strings, buffer.getInt(offset + 8), id);
+        String description = string(strings, buffer.getInt(offset + 12), id);
+        int epicId = buffer.getInt(offset + 16);
+        long minutes = buffer.getLong(offset + 20);
+        long epochSecond = buffer.getLong(offset + 28);
+        int nano = buffer.getInt(offset + 36);
+        Duration duration = minutes != NONE ? Duration.ofMinutes(minutes) : null;
+        LocalDateTime startTime = epochSecond != NONE
+                ? LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC) : null;
+
+        switch (TYPES[type]) {
+            case EPIC:
+                return new Epic(title, description, id);
+            case SUBTASK:
+                return new Subtask(title, description, id, STATUSES[status], duration, startTime, epicId);
+            default:
+                return new Task(title, description, id, STATUSES[status], duration, startTime);
+        }
+    }
+
+    private static String string(String[] strings, int index, int id) {
+        if (index == NO_STRING) {
+            return null;
+        }
+        if (index < 0 || index >= strings.length) {
+            throw new IllegalArgumentException("Некорректная ссылка на строку в записи " + id);
+        }
+        return strings[index];
+    }
+
+    private static void intern(String value, Map<String, Integer> indexes, List<byte[]> strings) {
+        if (value != null && !indexes.containsKey(value)) {
+            indexes.put(value, strings.size());
+            strings.add(value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static int indexOf(String value, Map<String, Integer> indexes) {
+        return value != null ? indexes.get(value) : NO_STRING;
+    }
+
+    private static TaskType typeOf(Task task) {
+        if (task instanceof Epic) {
+            return TaskType.EPIC;
+        }
+        return task instanceof Subtask ? TaskType.SUBTASK : TaskType.TASK;
+    }
+}
@@ -0,0 +1,240 @@
+package tasktracker.manager;
+
+import tasktracker.tasks.Epic;
+import tasktracker.tasks.Subtask;
+import tasktracker.tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+// Потокобезопасная обёртка над любым TaskManager (в том числе FileBackedTaskManager).
+// Все чтения, включая получение по id, выполняются параллельно под общей блокировкой:
+// таблицы задач при этом не меняются, а история синхронизирована сама по себе.
+// Изменения выполняются под эксклюзивной блокировкой: проверка пересечений охватывает всё расписание,
+// и только так она остаётся линеаризуемой.
+// Чтения возвращают сами объекты менеджера, а не копии, и блокировка снимается до того, как вызывающий
+// код их использует. Эпик при изменении подзадач пересчитывается на месте, поэтому всё, что обходит
+// объекты после получения (сериализация в JSON), должно выполняться внутри read.
+public class ConcurrentTaskManager implements TaskManager {
+    private final TaskManager delegate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ConcurrentTaskManager(TaskManager delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public <T> T read(Supplier<T> action) {
+        lock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <T> T write(Supplier<T> action) {
+        lock.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void write(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void createTask(Task task) {
+        write(() -> delegate.createTask(task));
+    }
+
+    @Override
+    public void createEpic(Epic epic) {
+        write(() -> delegate.createEpic(epic));
+    }
+
+    @Override
+    public void createSubtask(Subtask subtask) {
+        write(() -> delegate.createSubtask(subtask));
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return read(delegate::getAllTasks);
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return read(delegate::getAllEpics);
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return read(delegate::getAllSubtasks);
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        return read(() -> delegate.getTaskById(id));
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        return read(() -> delegate.getEpicById(id));
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        return read(() -> delegate.getSubtaskById(id));
+    }
+
+    @Override
+    public boolean containsTask(int id) {
+        return read(() -> delegate.containsTask(id));
+    }
+
+    @Override
+    public boolean containsEpic(int id) {
+        return read(() -> delegate.containsEpic(id));
+    }
+
+    @Override
+    public boolean containsSubtask(int id) {
+        return read(() -> delegate.containsSubtask(id));
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        write(() -> delegate.updateTask(task));
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        write(() -> delegate.updateEpic(epic));
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        write(() -> delegate.updateSubtask(subtask));
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        write(() -> delegate.deleteTaskById(id));
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        write(() -> delegate.deleteEpicById(id));
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        write(() -> delegate.deleteSubtaskById(id));
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        write(delegate::deleteAllTasks);
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        write(delegate::deleteAllEpics);
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        write(delegate::deleteAllSubtasks);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksOfEpic(int epicId) {
+        return read(() -> delegate.getSubtasksOfEpic(epicId));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return read(delegate::getHistory);
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        return read(() -> delegate.getHistory(limit));
+    }
+
+    // Счётчик id у InMemoryTaskManager атомарный, блокировка не нужна
+    @Override
+    public int generateId() {
+        return delegate.generateId();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return read(delegate::getPrioritizedTasks);
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return read(() -> delegate.getTasksBetween(from, to));
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to, int limit) {
+        return read(() -> delegate.getTasksBetween(from, to, limit));
+    }
+
+    @Override
+    public List<Task> getNextTasks(LocalDateTime after, int limit) {
+        return read(() -> delegate.getNextTasks(after, limit));
+    }
+
+    // Ленивый обход нельзя держать открытым после снятия блокировки,
+    // поэтому окно собирается в список под блокировкой чтения; если нужны только первые задачи окна,
+    // лучше getTasksBetween с limit — он не собирает окно целиком
+    @Override
+    public Iterator<Task> iterateTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return getTasksBetween(from, to).iterator();
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(Duration duration, LocalDateTime notBefore, WorkingHours workingHours) {
+        return read(() -> delegate.findFreeSlot(duration, notBefore, workingHours));
+    }
+
+    // Вся пачка планируется под одной блокировкой, чтобы найденные промежутки не заняли другие потоки
+    @Override
+    public List<Task> autoSchedule(Collection<? extends Task> tasks, LocalDateTime notBefore, WorkingHours workingHours) {
+        return write(() -> delegate.autoSchedule(tasks, notBefore, workingHours));
+    }
+
+    // Слушатели вызываются под эксклюзивной блокировкой вместе с изменением
+    @Override
+    public void addChangeListener(TaskChangeListener listener) {
+        write(() -> delegate.addChangeListener(listener));
+    }
+
+    @Override
+    public void removeChangeListener(TaskChangeListener listener) {
+        write(() -> delegate.removeChangeListener(listener));
+    }
+
+    @Override
+    public void close() {
+        write(delegate::close);
+    }
+}
@@ -0,0 +1,76 @@
+package tasktracker.manager;
+
+// Политика сброса журнала на диск: сколько подтверждённых изменений может быть потеряно при сбое
+// в обмен на число вызовов fsync.
+public final class DurabilityPolicy {
+
+    public enum Mode {
+        // Запись и fsync после каждой операции
+        SYNC_EVERY_OPERATION,
+        // Операции копятся в памяти и пишутся одной порцией с одним fsync раз в N операций или N мс
+        GROUP_COMMIT,
+        // Каждая операция передаётся ОС без fsync, сбросом на диск управляет ОС
+        OS_BUFFERED
+    }
+
+    private final Mode mode;
+    private final int maxOperations;
+    private final long maxDelayMillis;
+
+    private DurabilityPolicy(Mode mode, int maxOperations, long maxDelayMillis) {
+        this.mode = mode;
+        this.maxOperations = maxOperations;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    public static DurabilityPolicy syncEveryOperation() {
+        return new DurabilityPolicy(Mode.SYNC_EVERY_OPERATION, 1, 0);
+    }
+
+    public static DurabilityPolicy groupCommit(int maxOperations, long maxDelayMillis) {
+        if (maxOperations < 1 || maxDelayMillis < 1) {
+            throw new IllegalArgumentException("Размер пакета и задержка должны быть положительными.");
+        }
+        return new DurabilityPolicy(Mode.GROUP_COMMIT, maxOperations, maxDelayMillis);
+    }
+
+    public static DurabilityPolicy osBuffered() {
+        return new DurabilityPolicy(Mode.OS_BUFFERED, Integer.MAX_VALUE, 0);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getMaxOperations() {
+        return maxOperations;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    // Верхняя граница числа подтверждённых операций, которые могут пропасть при сбое:
+    // 0 — при fsync каждой операции, размер пакета — при групповой записи,
+    // Integer.MAX_VALUE — без fsync граница не определена
+    public int maxOperationsAtRisk() {
+        switch (mode) {
+            case SYNC_EVERY_OPERATION:
+                return 0;
+            case GROUP_COMMIT:
+                return maxOperations;
+            default:
+                return Integer.MAX_VALUE;
+        }
+    }
+
+    @Override
+    public String toString() {
+        switch (mode) {
+            case GROUP_COMMIT:
+                return mode + "(" + maxOperations + " ops, " + maxDelayMillis + " ms)";
+            default:
+                return mode.toString();
+        }
+    }
+}
@@ -6,17 +6,61 @@ import tasktracker.tasks.Subtask;
 import tasktracker.tasks.TaskType;
 import tasktracker.status.TaskStatus;
 import tasktracker.exceptions.ManagerSaveException;
+import tasktracker.util.IntHashSet;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
 
 public class FileBackedTaskManager extends InMemoryTaskManager {
+    private static final int DEFAULT_COMPACTION_THRESHOLD = 1000;
+    private static final int DEFAULT_SEGMENT_SIZE = 1024;
+    private static final String SEGMENT_SUFFIX = ".bin";
+    // Перечень сегментов, подготовленных к совместной замене, и суффикс подготовленного сегмента
+    static final String SEGMENT_INTENT = "pending";
+    static final String STAGED_SUFFIX = ".next";
+
     private final File file;
+    // Журнал изменений; null — каждое изменение перезаписывает файл целиком
+    private final TaskJournal journal;
+    // Журнал просмотров <file>.history
+    private final HistoryLog historyLog;
+    // Размер сегмента в id; 0 — всё хранится одним снимком в file
+    private final int segmentSize;
+    // Сегменты, изменённые с последней записи
+    private final IntHashSet dirtySegments = new IntHashSet();
+    private int compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+    private SnapshotFormat snapshotFormat = SnapshotFormat.CSV;
+    private boolean replaying;
+    // Журнал просмотров на диске относится к текущему снимку. Новый менеджер не трогает чужой журнал
+    // при открытии, а заменяет его своей историей вместе с первым собственным снимком
+    private boolean historyAdopted;
 
     public static void main(String[] args) {
         File file = new File("src/tasktracker/resources/tasks.csv");
@@ -68,171 +112,830 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     }
 
     public FileBackedTaskManager(File file) {
+        this(file, Managers.getDefaultHistory());
+    }
+
+    // Например, с асинхронной историей: new AsyncHistoryManager(Managers.getDefaultHistory())
+    public FileBackedTaskManager(File file, HistoryManager historyManager) {
+        this(file, null, 0, historyManager);
+    }
+
+    private FileBackedTaskManager(File file, TaskJournal journal, int segmentSize, HistoryManager historyManager) {
+        super(historyManager);
         this.file = file;
+        this.journal = journal;
+        // Журнал просмотров переписывается по истории, в которую уже попали все его записи
+        this.historyLog = new HistoryLog(file, this::settledHistory, historyCapacity());
+        this.segmentSize = segmentSize;
+    }
+
+    // Менеджер в режиме журнала: изменения дописываются в файл <file>.journal, а сам файл
+    // перезаписывается только при уплотнении журнала. Существующее содержимое file заменяется пустым снимком.
+    public static FileBackedTaskManager withJournal(File file) {
+        return withJournal(file, DurabilityPolicy.osBuffered());
+    }
+
+    public static FileBackedTaskManager withJournal(File file, DurabilityPolicy policy) {
+        return withJournal(file, policy, Managers.getDefaultHistory());
+    }
+
+    public static FileBackedTaskManager withJournal(File file, DurabilityPolicy policy,
+                                                    HistoryManager historyManager) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, new TaskJournal(file, policy), 0,
+                historyManager);
+        manager.save();
+        manager.journal.start();
+        return manager;
+    }
+
+    // Менеджер с сегментированным хранением: записи лежат в двоичных файлах каталога <file>.segments,
+    // по segmentSize id в каждом (подзадача — в сегменте своего эпика). После изменения переписываются
+    // только затронутые сегменты, поэтому объём записи не зависит от размера доски.
+    // Существующие сегменты в каталоге удаляются.
+    public static FileBackedTaskManager withSegments(File file) {
+        return withSegments(file, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public static FileBackedTaskManager withSegments(File file, int segmentSize) {
+        if (segmentSize < 1) {
+            throw new IllegalArgumentException("Размер сегмента должен быть положительным.");
+        }
+        File directory = segmentsDirectory(file);
+        try {
+            Files.createDirectories(directory.toPath());
+            completeSegmentIntent(directory);
+            for (File segment : segmentFiles(directory)) {
+                Files.delete(segment.toPath());
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка создания каталога сегментов", e);
+        }
+        return new FileBackedTaskManager(file, null, segmentSize, Managers.getDefaultHistory());
+    }
+
+    static File segmentsDirectory(File file) {
+        return new File(file.getPath() + ".segments");
+    }
+
+    private static File[] segmentFiles(File directory) {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        return files != null ? files : new File[0];
+    }
+
+    // Сколько подтверждённых изменений может быть потеряно при сбое прямо сейчас
+    public int getUnsyncedOperations() {
+        return journal != null ? journal.unsyncedOperations() : 0;
     }
 
+    // Сброс накопленных записей журнала на диск и передача ОС накопленных просмотров
+    public void sync() {
+        historyLog.flush();
+        if (journal != null) {
+            journal.sync();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            historyLog.close();
+        } finally {
+            try {
+                if (journal != null) {
+                    journal.close();
+                }
+            } finally {
+                super.close();
+            }
+        }
+    }
+
+    // Сколько записей журнала накапливается перед записью нового снимка
+    public void setCompactionThreshold(int compactionThreshold) {
+        if (compactionThreshold < 1) {
+            throw new IllegalArgumentException("Порог уплотнения журнала должен быть положительным.");
+        }
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    public SnapshotFormat getSnapshotFormat() {
+        return snapshotFormat;
+    }
+
+    // Формат, в котором будут записываться следующие снимки; загруженный менеджер сохраняет формат файла
+    public void setSnapshotFormat(SnapshotFormat snapshotFormat) {
+        this.snapshotFormat = snapshotFormat;
+    }
+
+    // Запись полного снимка; в режиме журнала после неё начинается новый журнал
+    // Снимок пишется во временный файл рядом, сбрасывается на диск и атомарно заменяет старый:
+    // при сбое на месте file остаётся либо прежний снимок, либо новый целиком
     private void save() {
-        try (FileWriter writer = new FileWriter(file)) {
-            writer.write("id,type,name,status,description,duration,startTime,epic\n");
-            for (Task task : getAllTasks()) {
-                writer.write(toString(task) + "\n");
-            }
-            for (Epic epic : getAllEpics()) {
-                writer.write(toString(epic) + "\n");
-                for (Subtask subtask : getSubtasksOfEpic(epic.getId())) {
-                    writer.write(toString(subtask) + "\n");
+        long crc = writeAtomically(file.toPath(), (out, checksum) -> {
+            if (snapshotFormat == SnapshotFormat.BINARY) {
+                // Подзадачи в порядке эпиков: при загрузке сохранится порядок подзадач внутри эпика
+                List<Epic> epics = getAllEpics();
+                List<Subtask> subtasks = new ArrayList<>();
+                for (Epic epic : epics) {
+                    subtasks.addAll(getSubtasksOfEpic(epic.getId()));
                 }
+                BinarySnapshot.write(out, peekNextId(), getAllTasks(), epics, subtasks);
+                return null;
             }
+            return writeCsv(out, checksum);
+        });
+        syncDirectory(file.toPath());
+        if (journal != null) {
+            journal.reset(crc);
+        }
+        adoptHistoryLog();
+    }
+
+    // Возвращает байты, которыми перед сбросом на диск заменяется начало файла, или null
+    private interface SnapshotWriter {
+        byte[] write(OutputStream out, CRC32 checksum) throws IOException;
+    }
+
+    // Запись через временный файл с fsync и атомарным переименованием; возвращает CRC32 записанного
+    // (если пишущий сбросил его по пути — то, что записано после сброса)
+    private static long writeAtomically(Path target, SnapshotWriter writer) {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        long crc = writeDurably(tmp, writer);
+        try {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         } catch (IOException e) {
             throw new ManagerSaveException("Ошибка сохранения в файл", e);
         }
+        return crc;
     }
 
-    // Для тестов save
-    public void saveToFile() {
-        save();
-    }
-
-    private String toString(Task task) {
-        TaskType type = TaskType.TASK;
-        if (task instanceof Epic) {
-            type = TaskType.EPIC;
-        } else if (task instanceof Subtask) {
-            type = TaskType.SUBTASK;
-        }
-        String duration = task.getDuration() != null ? String.valueOf(task.getDuration().toMinutes()) : "";
-        String startTime = task.getStartTime() != null ? task.getStartTime().toString() : "";
-        String epicId = task instanceof Subtask ? String.valueOf(((Subtask) task).getEpicId()) : "";
-        return String.join(",",
-                String.valueOf(task.getId()),
-                type.toString(),
-                task.getTitle(),
-                task.getStatus().toString(),
-                task.getDescription(),
-                duration,
-                startTime,
-                epicId
-        );
-    }
-
-    private static Task fromString(String value) {
-        String[] fields = value.split(",");
-        if (fields.length < 5) { // Минимум 5 полей: id, type, name, status, description
-            throw new IllegalArgumentException("Некорректная строка CSV: " + value);
-        }
-
-        int id = Integer.parseInt(fields[0]);
-        TaskType type = TaskType.valueOf(fields[1]);
-        String name = fields[2];
-        TaskStatus status = TaskStatus.valueOf(fields[3]);
-        String description = fields[4];
-        Duration duration = fields.length > 5 && !fields[5].isEmpty() ? Duration.ofMinutes(Long.parseLong(fields[5])) : null;
-        LocalDateTime startTime = fields.length > 6 && !fields[6].isEmpty() ? LocalDateTime.parse(fields[6]) : null;
-
-        if (type == TaskType.TASK) {
-            return new Task(name, description, id, status, duration, startTime);
-        } else if (type == TaskType.EPIC) {
-            return new Epic(name, description, id);
-        } else if (type == TaskType.SUBTASK) {
-            if (fields.length < 8 || fields[7].isEmpty()) {
-                throw new IllegalArgumentException("Некорректная строка CSV для Subtask: " + value);
-            }
-            int epicId = Integer.parseInt(fields[7]);
-            return new Subtask(name, description, id, status, duration, startTime, epicId);
+    // Запись файла целиком со сбросом на диск, без переименования
+    private static long writeDurably(Path path, SnapshotWriter writer) {
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), crc), 1 << 16);
+            byte[] head = writer.write(out, crc);
+            out.flush();
+            if (head != null) {
+                ByteBuffer buffer = ByteBuffer.wrap(head);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer, buffer.position());
+                }
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка сохранения в файл", e);
+        }
+        return crc.getValue();
+    }
+
+    // Подзадача хранится в сегменте своего эпика: эпик и его подзадачи всегда записываются одним файлом,
+    // и после сбоя подзадача не может оказаться без эпика
+    private int segmentOf(Task task) {
+        int key = task instanceof Subtask ? ((Subtask) task).getEpicId() : task.getId();
+        return key / segmentSize;
+    }
+
+    private void markDirty(Task task) {
+        if (segmentSize > 0 && task != null) {
+            dirtySegments.add(segmentOf(task));
+        }
+    }
+
+    private void markDirty(Collection<? extends Task> changed) {
+        for (Task task : changed) {
+            markDirty(task);
+        }
+    }
+
+    // Запись изменённых сегментов; сегмент без записей остаётся пустым файлом, чтобы сохранить счётчик id.
+    // Один сегмент заменяется атомарным переименованием. Несколько сегментов (перенос подзадачи в эпик
+    // другого сегмента, массовое удаление) должны смениться вместе, иначе сбой между файлами оставит
+    // подзадачу в двух сегментах или ни в одном. Поэтому каждый сначала пишется рядом с суффиксом .next,
+    // затем атомарно записывается перечень подготовленных сегментов, и только после этого они
+    // переименовываются. Сбой до записи перечня оставляет прежние сегменты, после — загрузка доводит
+    // замену до конца (см. completeSegmentIntent)
+    private void saveSegments() {
+        if (replaying || dirtySegments.isEmpty()) {
+            return;
+        }
+        int[] segments = dirtySegments.toArray();
+        dirtySegments.clear();
+        File directory = segmentsDirectory(file);
+        Path intent = new File(directory, SEGMENT_INTENT).toPath();
+        if (segments.length == 1) {
+            writeAtomically(segmentPath(directory, segments[0]), segmentWriter(segments[0]));
         } else {
-            throw new IllegalArgumentException("Неизвестный тип задачи: " + type);
+            StringBuilder names = new StringBuilder();
+            for (int segment : segments) {
+                Path target = segmentPath(directory, segment);
+                writeDurably(stagedPath(target), segmentWriter(segment));
+                names.append(target.getFileName()).append('\n');
+            }
+            syncDirectory(intent);
+            writeAtomically(intent, (out, checksum) -> {
+                out.write(names.toString().getBytes(StandardCharsets.UTF_8));
+                return null;
+            });
+            syncDirectory(intent);
+            completeSegmentIntent(directory);
         }
+        syncDirectory(intent);
+        adoptHistoryLog();
     }
 
-    public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+    private Path segmentPath(File directory, int segment) {
+        long from = (long) segment * segmentSize;
+        return new File(directory, from + "-" + (from + segmentSize) + SEGMENT_SUFFIX).toPath();
+    }
+
+    private static Path stagedPath(Path segment) {
+        return segment.resolveSibling(segment.getFileName() + STAGED_SUFFIX);
+    }
+
+    // Записи сегмента собираются сразу, запись в файл — при вызове
+    private SnapshotWriter segmentWriter(int segment) {
+        long from = (long) segment * segmentSize;
+        long to = from + segmentSize;
+        List<Task> segmentTasks = new ArrayList<>();
+        List<Epic> segmentEpics = new ArrayList<>();
+        List<Subtask> segmentSubtasks = new ArrayList<>();
+        for (long id = from; id < to && id <= Integer.MAX_VALUE; id++) {
+            Task task = findTask((int) id);
+            if (task != null) {
+                segmentTasks.add(task);
+            }
+            Epic epic = findEpic((int) id);
+            if (epic != null) {
+                segmentEpics.add(epic);
+                segmentSubtasks.addAll(getSubtasksOfEpic(epic.getId()));
+            }
+        }
+        int nextId = peekNextId();
+        return (out, checksum) -> {
+            BinarySnapshot.write(out, nextId, segmentTasks, segmentEpics, segmentSubtasks);
+            return null;
+        };
+    }
+
+    // Завершение замены сегментов, прерванной сбоем. Если перечень записан, все сегменты из него
+    // уже подготовлены и переименовываются; подготовленные сегменты без перечня отбрасываются
+    private static void completeSegmentIntent(File directory) {
+        Path intent = new File(directory, SEGMENT_INTENT).toPath();
         try {
-            List<String> lines = Files.readAllLines(file.toPath());
-            for (String line : lines.subList(1, lines.size())) {
-                Task task = fromString(line);
+            if (Files.exists(intent)) {
+                for (String name : Files.readAllLines(intent, StandardCharsets.UTF_8)) {
+                    Path target = new File(directory, name).toPath();
+                    if (!name.isEmpty() && Files.exists(stagedPath(target))) {
+                        Files.move(stagedPath(target), target, StandardCopyOption.REPLACE_EXISTING,
+                                StandardCopyOption.ATOMIC_MOVE);
+                    }
+                }
+                syncDirectory(intent);
+                Files.delete(intent);
+            }
+            File[] staged = directory.listFiles((dir, name) -> name.endsWith(STAGED_SUFFIX));
+            for (File file : staged != null ? staged : new File[0]) {
+                Files.delete(file.toPath());
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка завершения записи сегментов", e);
+        }
+    }
+
+    // Первая строка — контрольная сумма всего, что записано после неё. Строка фиксированной длины:
+    // сначала пишется заглушка, а значение вписывается на её место перед сбросом файла на диск.
+    // Обрезанный файл сохраняет первую строку и не проходит проверку, в отличие от строки в конце,
+    // которая пропала бы вместе с обрезанным хвостом
+    private byte[] writeCsv(OutputStream out, CRC32 crc) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writer.write(TaskCsv.checksumLine(0));
+        writer.flush();
+        crc.reset();
+        writer.write(TaskCsv.HEADER + "\n");
+        // Одна строка-буфер на весь файл
+        StringBuilder line = new StringBuilder(128);
+        for (Task task : getAllTasks()) {
+            writeLine(writer, line, task);
+        }
+        for (Epic epic : getAllEpics()) {
+            writeLine(writer, line, epic);
+            for (Subtask subtask : getSubtasksOfEpic(epic.getId())) {
+                writeLine(writer, line, subtask);
+            }
+        }
+        writer.flush();
+        return TaskCsv.checksumLine(crc.getValue()).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // Переименование становится устойчивым к сбою после сброса каталога. Не везде каталог можно открыть
+    // (например, в Windows), там достаточно атомарности самого переименования
+    private static void syncDirectory(Path target) {
+        Path directory = target.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException | UnsupportedOperationException e) {
+            // Снимок уже на месте, не хватает только гарантии для записи каталога
+        }
+    }
+
+    private static void writeLine(Writer writer, StringBuilder line, Task task) throws IOException {
+        line.setLength(0);
+        TaskCsv.append(line, task);
+        line.append('\n');
+        writer.append(line);
+    }
+
+    // Сохранение одного изменения: запись в журнал или полная перезапись файла
+    private void saveRecord(String record) {
+        if (replaying) {
+            return;
+        }
+        if (journal == null) {
+            save();
+            return;
+        }
+        journal.append(record);
+        if (journal.size() >= compactionThreshold) {
+            save();
+        }
+    }
+
+    private void saveChange(char operation, Task task) {
+        if (segmentSize > 0) {
+            markDirty(task);
+            saveSegments();
+        } else {
+            saveRecord(operation + "," + TaskCsv.format(task));
+        }
+    }
+
+    // В сегментированном режиме затронутые сегменты отмечаются до удаления, пока запись ещё известна
+    private void saveDeletion(TaskType type, int id) {
+        if (segmentSize > 0) {
+            saveSegments();
+        } else {
+            saveRecord("D," + type + "," + id);
+        }
+    }
+
+    private void saveClear(TaskType type) {
+        if (segmentSize > 0) {
+            saveSegments();
+        } else {
+            saveRecord("X," + type);
+        }
+    }
+
+    // Удалённая задача не должна вернуться в историю, если её id будет задан заново
+    private void forgetView(int id) {
+        if (!replaying) {
+            historyLog.remove(id);
+        }
+    }
+
+    private void forgetViews(Collection<? extends Task> removed) {
+        for (Task task : removed) {
+            forgetView(task.getId());
+        }
+    }
+
+    // Повтор записей журнала поверх загруженного снимка
+    private void replay(List<String> records) {
+        replaying = true;
+        try {
+            for (String record : records) {
+                apply(record);
+            }
+        } finally {
+            replaying = false;
+        }
+    }
+
+    private void apply(String record) {
+        if (record.length() < 3 || record.charAt(1) != ',') {
+            throw new IllegalArgumentException("Некорректная запись журнала: " + record);
+        }
+        String payload = record.substring(2);
+        switch (record.charAt(0)) {
+            case 'C': {
+                Task task = TaskCsv.parse(payload);
                 if (task instanceof Epic) {
-                    manager.createEpic((Epic) task);
+                    createEpic((Epic) task);
                 } else if (task instanceof Subtask) {
-                    manager.createSubtask((Subtask) task);
+                    createSubtask((Subtask) task);
                 } else {
-                    manager.createTask(task);
+                    createTask(task);
                 }
+                break;
+            }
+            case 'U': {
+                Task task = TaskCsv.parse(payload);
+                if (task instanceof Epic) {
+                    updateEpic((Epic) task);
+                } else if (task instanceof Subtask) {
+                    updateSubtask((Subtask) task);
+                } else {
+                    updateTask(task);
+                }
+                break;
+            }
+            case 'D': {
+                String[] fields = payload.split(",");
+                int id = Integer.parseInt(fields[1]);
+                switch (TaskType.valueOf(fields[0])) {
+                    case TASK:
+                        deleteTaskById(id);
+                        break;
+                    case EPIC:
+                        deleteEpicById(id);
+                        break;
+                    case SUBTASK:
+                        deleteSubtaskById(id);
+                        break;
+                }
+                break;
+            }
+            case 'X':
+                switch (TaskType.valueOf(payload)) {
+                    case TASK:
+                        deleteAllTasks();
+                        break;
+                    case EPIC:
+                        deleteAllEpics();
+                        break;
+                    case SUBTASK:
+                        deleteAllSubtasks();
+                        break;
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Некорректная запись журнала: " + record);
+        }
+    }
+
+    // Для тестов save; в сегментированном режиме переписываются все сегменты
+    public void saveToFile() {
+        if (segmentSize > 0) {
+            markDirty(getAllTasks());
+            markDirty(getAllEpics());
+            saveSegments();
+        } else {
+            save();
+        }
+    }
+
+    // Файл читается один раз, записи восстанавливаются пакетно без перезаписи файла:
+    // следующий save() произойдёт только при первом реальном изменении.
+    // Формат снимка (CSV или двоичный) определяется по первым байтам файла.
+    // Если рядом есть журнал, менеджер продолжает работу в режиме журнала и повторяет его записи.
+    // Если есть каталог сегментов, менеджер загружается из него и продолжает сегментированное хранение.
+    public static FileBackedTaskManager loadFromFile(File file) {
+        if (segmentsDirectory(file).isDirectory()) {
+            return loadSegments(file, Managers.getDefaultHistory());
+        }
+        TaskJournal journal = TaskJournal.fileFor(file).exists()
+                ? new TaskJournal(file, DurabilityPolicy.osBuffered()) : null;
+        return loadFromFile(file, journal, Managers.getDefaultHistory());
+    }
+
+    // Есть ли сохранённая доска: файл снимка или каталог сегментов
+    static boolean exists(File file) {
+        return file.exists() || segmentsDirectory(file).isDirectory();
+    }
+
+    // История восстанавливается после задач и журнала, поэтому удалённые задачи в неё не попадают.
+    // Сразу после загрузки журнал просмотров переписывается: остаются только восстановленные записи
+    private void loadHistory() {
+        historyAdopted = true;
+        if (!historyLog.exists()) {
+            return;
+        }
+        restoreHistory(historyLog.read());
+        historyLog.rewrite();
+    }
+
+    private void adoptHistoryLog() {
+        if (!historyAdopted) {
+            historyAdopted = true;
+            historyLog.rewrite();
+        }
+    }
+
+    // Загрузка с продолжением работы в режиме журнала с заданной политикой сброса на диск.
+    // Сегментированная доска, как и в loadFromFile(File), загружается из каталога сегментов
+    // и продолжает сегментированное хранение: журнала у неё нет, и политика к ней не относится
+    public static FileBackedTaskManager loadFromFile(File file, DurabilityPolicy policy) {
+        return loadFromFile(file, policy, Managers.getDefaultHistory());
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file, DurabilityPolicy policy,
+                                                     HistoryManager historyManager) {
+        if (segmentsDirectory(file).isDirectory()) {
+            return loadSegments(file, historyManager);
+        }
+        return loadFromFile(file, new TaskJournal(file, policy), historyManager);
+    }
+
+    private static FileBackedTaskManager loadFromFile(File file, TaskJournal journal,
+                                                      HistoryManager historyManager) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, journal, 0, historyManager);
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(header, 0);
+            header.flip();
+            if (BinarySnapshot.matches(header)) {
+                // Двоичный снимок читается прямо из отображённого в память файла без копирования целиком
+                MappedByteBuffer content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                crc.update(content.duplicate());
+                BinarySnapshot.Contents contents = BinarySnapshot.read(content);
+                manager.restore(contents.tasks, contents.nextId);
+                manager.snapshotFormat = SnapshotFormat.BINARY;
+            } else {
+                manager.restore(readCsv(channel, crc));
             }
         } catch (IOException e) {
             throw new ManagerSaveException("Ошибка загрузки из файла", e);
+        } catch (UncheckedIOException e) {
+            throw new ManagerSaveException("Ошибка загрузки из файла", e.getCause());
+        }
+        if (journal != null) {
+            List<String> records = journal.read(crc.getValue());
+            if (records.isEmpty()) {
+                // Журнал отсутствует или уже вошёл в снимок — начинаем новый от текущего снимка
+                journal.reset(crc.getValue());
+            } else {
+                manager.replay(records);
+            }
+        }
+        manager.loadHistory();
+        if (journal != null) {
+            journal.start();
         }
         return manager;
     }
 
+    // CSV читается потоком: в памяти только буфер и текущая запись, контрольная сумма считается по пути.
+    // Контрольная сумма ищется в первой строке; файлы предыдущей версии хранят её в последней строке.
+    // Файлы без строки контрольной суммы записаны до её появления и до появления кавычек:
+    // они принимаются без проверки и разбираются по старым правилам. Журнал привязан к контрольной
+    // сумме из первой строки, а для файлов предыдущей версии — к CRC всего файла
+    private static List<Task> readCsv(FileChannel channel, CRC32 crc) throws IOException {
+        long size = channel.size();
+        int checksumLength = TaskCsv.checksumLine(0).length();
+        ByteBuffer head = ByteBuffer.allocate((int) Math.min(size, checksumLength));
+        channel.read(head, 0);
+        Long expected = TaskCsv.parseChecksumLine(new String(head.array(), StandardCharsets.US_ASCII));
+        boolean leading = expected != null;
+        long contentStart = leading ? checksumLength : 0;
+        long contentSize = leading ? size - checksumLength : size;
+        ByteBuffer tail = null;
+        if (!leading) {
+            tail = ByteBuffer.allocate((int) Math.min(size, checksumLength));
+            channel.read(tail, size - tail.capacity());
+            expected = TaskCsv.parseChecksumLine(new String(tail.array(), StandardCharsets.US_ASCII));
+            if (expected != null) {
+                contentSize = size - checksumLength;
+            }
+        }
+
+        List<Task> loaded = new ArrayList<>();
+        channel.position(contentStart);
+        InputStream content = new CheckedInputStream(new LimitedInputStream(Channels.newInputStream(channel),
+                contentSize), crc);
+        try (TaskCsv.Reader reader = new TaskCsv.Reader(new InputStreamReader(content, StandardCharsets.UTF_8),
+                expected != null)) {
+            reader.next(); // Строка заголовков
+            while (reader.next()) {
+                if (!reader.isBlank()) {
+                    loaded.add(reader.toTask());
+                }
+            }
+        }
+        if (expected != null) {
+            if (crc.getValue() != expected) {
+                throw new IllegalArgumentException("Снимок повреждён: контрольная сумма не совпадает.");
+            }
+            if (!leading) {
+                crc.update(tail.array());
+            }
+        }
+        return loaded;
+    }
+
+    // Поток, заканчивающийся через limit байт: строка контрольной суммы в конце файла не попадает в разбор и CRC
+    private static final class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(b, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+    }
+
+    // Сегменты независимы и читаются параллельно; размер сегмента восстанавливается по именам файлов
+    private static FileBackedTaskManager loadSegments(File file, HistoryManager historyManager) {
+        completeSegmentIntent(segmentsDirectory(file));
+        File[] files = segmentFiles(segmentsDirectory(file));
+        int segmentSize = DEFAULT_SEGMENT_SIZE;
+        for (int i = 0; i < files.length; i++) {
+            String name = files[i].getName();
+            String[] range = name.substring(0, name.length() - SEGMENT_SUFFIX.length()).split("-");
+            int size;
+            try {
+                size = (int) (Long.parseLong(range[1]) - Long.parseLong(range[0]));
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Некорректное имя сегмента: " + name);
+            }
+            if (i > 0 && size != segmentSize) {
+                throw new IllegalArgumentException("Сегменты разного размера: " + name);
+            }
+            segmentSize = size;
+        }
+        List<BinarySnapshot.Contents> segments = Arrays.stream(files)
+                .parallel()
+                .map(FileBackedTaskManager::readSegment)
+                .collect(Collectors.toList());
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, null, segmentSize, historyManager);
+        List<Task> loaded = new ArrayList<>();
+        int nextId = 1;
+        // Запись из двух сегментов означала бы незавершённую замену, которую не удалось довести до конца
+        IntHashSet ids = new IntHashSet();
+        for (BinarySnapshot.Contents segment : segments) {
+            for (Task task : segment.tasks) {
+                if (!ids.add(task.getId())) {
+                    throw new IllegalArgumentException("Сегменты повреждены: запись " + task.getId()
+                            + " встречается дважды.");
+                }
+            }
+            loaded.addAll(segment.tasks);
+            nextId = Math.max(nextId, segment.nextId);
+        }
+        manager.restore(loaded, nextId);
+        manager.loadHistory();
+        return manager;
+    }
+
+    private static BinarySnapshot.Contents readSegment(File segment) {
+        try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.READ)) {
+            return BinarySnapshot.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка загрузки сегмента " + segment.getName(), e);
+        }
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        Task task = super.getTaskById(id);
+        if (task != null) {
+            historyLog.view(id);
+        }
+        return task;
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        Epic epic = super.getEpicById(id);
+        if (epic != null) {
+            historyLog.view(id);
+        }
+        return epic;
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        Subtask subtask = super.getSubtaskById(id);
+        if (subtask != null) {
+            historyLog.view(id);
+        }
+        return subtask;
+    }
+
     @Override
     public void createTask(Task task) {
         super.createTask(task);
-        save();
+        saveChange('C', task);
     }
 
     @Override
     public void createEpic(Epic epic) {
         super.createEpic(epic);
-        save();
+        saveChange('C', epic);
     }
 
     @Override
     public void createSubtask(Subtask subtask) {
         super.createSubtask(subtask);
-        save();
+        saveChange('C', subtask);
     }
 
     @Override
     public void updateTask(Task task) {
         super.updateTask(task);
-        save();
+        saveChange('U', task);
     }
 
     @Override
     public void updateEpic(Epic epic) {
         super.updateEpic(epic);
-        save();
+        saveChange('U', epic);
     }
 
     @Override
     public void updateSubtask(Subtask subtask) {
+        // Подзадача могла перейти к эпику из другого сегмента
+        markDirty(findSubtask(subtask.getId()));
         super.updateSubtask(subtask);
-        save();
+        saveChange('U', subtask);
     }
 
     @Override
     public void deleteTaskById(int id) {
+        markDirty(findTask(id));
         super.deleteTaskById(id);
-        save();
+        saveDeletion(TaskType.TASK, id);
+        forgetView(id);
     }
 
     @Override
     public void deleteEpicById(int id) {
+        markDirty(findEpic(id));
+        // Подзадачи удаляются вместе с эпиком
+        List<Subtask> removedSubtasks = getSubtasksOfEpic(id);
         super.deleteEpicById(id);
-        save();
+        forgetViews(removedSubtasks);
+        saveDeletion(TaskType.EPIC, id);
+        forgetView(id);
     }
 
     @Override
     public void deleteSubtaskById(int id) {
+        markDirty(findSubtask(id));
         super.deleteSubtaskById(id);
-        save();
+        saveDeletion(TaskType.SUBTASK, id);
+        forgetView(id);
     }
 
     @Override
     public void deleteAllTasks() {
+        List<Task> removed = getAllTasks();
+        if (segmentSize > 0) {
+            markDirty(removed);
+        }
         super.deleteAllTasks();
-        save();
+        saveClear(TaskType.TASK);
+        forgetViews(removed);
     }
 
     @Override
     public void deleteAllEpics() {
+        List<Epic> removedEpics = getAllEpics();
+        List<Subtask> removedSubtasks = getAllSubtasks();
+        if (segmentSize > 0) {
+            markDirty(removedEpics);
+        }
         super.deleteAllEpics();
-        save();
+        saveClear(TaskType.EPIC);
+        forgetViews(removedEpics);
+        forgetViews(removedSubtasks);
     }
 
     @Override
     public void deleteAllSubtasks() {
+        List<Subtask> removed = getAllSubtasks();
+        if (segmentSize > 0) {
+            markDirty(removed);
+        }
         super.deleteAllSubtasks();
-        save();
+        saveClear(TaskType.SUBTASK);
+        forgetViews(removed);
     }
 }
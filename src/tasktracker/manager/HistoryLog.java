@@ -0,0 +1,241 @@
+package tasktracker.manager;
+
+import tasktracker.exceptions.ManagerSaveException;
+import tasktracker.tasks.Task;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Журнал просмотров рядом с файлом снимка: строка "V,<id>" — просмотр, "R,<id>" — удаление из истории.
+// view и remove только дописывают запись в буфер в памяти: чтения не ждут диск и не работают с файлом.
+// Буфер передаётся ОС без fsync фоновым потоком раз в FLUSH_INTERVAL_MILLIS, а также при sync и close;
+// на случай завершения JVM без close зарегистрирован shutdown hook. Потеря последних просмотров при сбое
+// допустима. Когда записей становится в COMPACTION_FACTOR раз больше, чем помещается в историю,
+// фоновый поток переписывает файл текущим содержимым истории.
+class HistoryLog {
+    // Как часто накопленные записи передаются ОС
+    static final long FLUSH_INTERVAL_MILLIS = 200;
+    // Во сколько раз число записей с последнего уплотнения может превысить размер истории
+    static final int COMPACTION_FACTOR = 4;
+
+    private final Path path;
+    private final Supplier<List<Task>> history;
+    private final int compactionThreshold;
+    // Буфер и счётчик записей охраняются монитором журнала; файл — отдельной блокировкой ioLock,
+    // поэтому view не ждёт запись на диск
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private int records;
+    private final Object ioLock = new Object();
+    private FileChannel channel;
+    private ScheduledExecutorService flusher;
+    private Thread shutdownHook;
+    private boolean closed;
+
+    // historyCapacity — размер истории, из которой пишутся просмотры
+    HistoryLog(File snapshotFile, Supplier<List<Task>> history, int historyCapacity) {
+        this.path = fileFor(snapshotFile).toPath();
+        this.history = history;
+        // Без переполнения int при очень большой истории
+        this.compactionThreshold = (int) Math.min(Integer.MAX_VALUE, (long) COMPACTION_FACTOR * historyCapacity);
+    }
+
+    static File fileFor(File snapshotFile) {
+        return new File(snapshotFile.getPath() + ".history");
+    }
+
+    // Id задач в истории от старых просмотров к новым. Недописанная последняя строка и повреждённые
+    // строки пропускаются: история не критична
+    List<Integer> read() {
+        LinkedHashSet<Integer> ids = new LinkedHashSet<>();
+        synchronized (ioLock) {
+            if (!Files.exists(path)) {
+                return new ArrayList<>();
+            }
+            try {
+                String[] lines = Files.readString(path, StandardCharsets.UTF_8).split("\n", -1);
+                // Последний элемент — пустая строка после перевода строки либо недописанная запись
+                for (int i = 0; i < lines.length - 1; i++) {
+                    String line = lines[i];
+                    if (line.length() < 3 || line.charAt(1) != ',') {
+                        continue;
+                    }
+                    int id;
+                    try {
+                        id = Integer.parseInt(line.substring(2));
+                    } catch (NumberFormatException e) {
+                        continue;
+                    }
+                    ids.remove(id);
+                    if (line.charAt(0) == 'V') {
+                        ids.add(id);
+                    }
+                }
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка чтения истории", e);
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+
+    void view(int id) {
+        append('V', id);
+    }
+
+    void remove(int id) {
+        append('R', id);
+    }
+
+    // Замена журнала текущей историей через временный файл. Буфер сбрасывается под тем же монитором,
+    // под которым берётся история, поэтому просмотр либо попадает в неё, либо остаётся в буфере
+    void rewrite() {
+        synchronized (ioLock) {
+            StringBuilder content = new StringBuilder();
+            synchronized (this) {
+                List<Task> tasks = history.get();
+                for (Task task : tasks) {
+                    content.append("V,").append(task.getId()).append('\n');
+                }
+                pending.reset();
+                records = tasks.size();
+            }
+            closeChannel();
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try {
+                Files.writeString(tmp, content, StandardCharsets.UTF_8);
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка уплотнения истории", e);
+            }
+        }
+    }
+
+    boolean exists() {
+        synchronized (ioLock) {
+            return Files.exists(path);
+        }
+    }
+
+    // Передача ОС накопленных записей; при разросшемся файле — уплотнение
+    void flush() {
+        synchronized (ioLock) {
+            byte[] bytes;
+            synchronized (this) {
+                if (records >= compactionThreshold) {
+                    rewrite();
+                    return;
+                }
+                bytes = pending.toByteArray();
+                pending.reset();
+            }
+            if (bytes.length == 0) {
+                return;
+            }
+            try {
+                if (channel == null) {
+                    channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                            StandardOpenOption.APPEND);
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                // Записи возвращаются в начало буфера для следующей попытки
+                synchronized (this) {
+                    byte[] newer = pending.toByteArray();
+                    pending.reset();
+                    pending.write(bytes, 0, bytes.length);
+                    pending.write(newer, 0, newer.length);
+                }
+                throw new ManagerSaveException("Ошибка записи истории", e);
+            }
+        }
+    }
+
+    void close() {
+        ScheduledExecutorService stopped;
+        Thread hook;
+        synchronized (this) {
+            closed = true;
+            stopped = flusher;
+            hook = shutdownHook;
+            flusher = null;
+            shutdownHook = null;
+        }
+        if (stopped != null) {
+            stopped.shutdownNow();
+        }
+        if (hook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (IllegalStateException e) {
+                // JVM уже завершается, hook выполняется или выполнен
+            }
+        }
+        synchronized (ioLock) {
+            try {
+                flush();
+            } finally {
+                closeChannel();
+            }
+        }
+    }
+
+    private synchronized void append(char operation, int id) {
+        byte[] bytes = (operation + "," + id + "\n").getBytes(StandardCharsets.US_ASCII);
+        pending.write(bytes, 0, bytes.length);
+        records++;
+        if (flusher == null && !closed) {
+            startFlusher();
+        }
+    }
+
+    // Поток записи запускается при первом просмотре: менеджеру без просмотров он не нужен
+    private void startFlusher() {
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "history-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushInBackground,
+                FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        shutdownHook = new Thread(this::flushInBackground, "history-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    private void flushInBackground() {
+        try {
+            flush();
+        } catch (ManagerSaveException e) {
+            // История не критична: записи остаются в буфере и будут записаны при следующей попытке
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка закрытия истории", e);
+        } finally {
+            channel = null;
+        }
+    }
+}
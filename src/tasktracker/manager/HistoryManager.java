@@ -9,4 +9,18 @@ public interface HistoryManager {
     void remove(int id);
 
     List<Task> getHistory();
+
+    // Последние limit просмотров в том же порядке, что и getHistory (от старых к новым)
+    List<Task> getHistory(int limit);
+
+    // Сколько последних просмотров хранит история
+    int getCapacity();
+
+    // Ожидание, пока в истории окажутся все уже записанные просмотры; синхронной истории ждать нечего
+    default void flush() {
+    }
+
+    // Освобождение ресурсов истории, например фонового потока
+    default void close() {
+    }
 }
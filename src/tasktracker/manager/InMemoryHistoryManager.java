@@ -1,85 +1,164 @@
 package tasktracker.manager;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 import tasktracker.tasks.Task;
+import tasktracker.util.IntIntHashMap;
 
+// Методы синхронизированы: история меняется при чтении задач, а чтения могут идти параллельно.
+// Двусвязный список хранится в массивах: у каждого просмотра есть ячейка, связи prev/next — номера ячеек.
+// Повторный просмотр только перевязывает ячейку, вытеснение переиспользует ячейку самого старого
+// просмотра, поэтому при просмотрах объекты не создаются. Массивы растут вдвое до capacity.
 public class InMemoryHistoryManager implements HistoryManager {
-    private final Map<Integer, Node> historyMap = new HashMap<>();
-    private Node head;
-    private Node tail;
-
-    // Класс узла двусвязного списка
-    private static class Node {
-        Task task;
-        Node next;
-        Node prev;
-
-        Node(Task task) {
-            this.task = task;
+    // Сколько последних просмотров хранится по умолчанию
+    public static final int DEFAULT_CAPACITY = 1_000;
+    private static final int INITIAL_SLOTS = 16;
+    private static final int NONE = -1;
+
+    // id задачи -> номер ячейки
+    private final IntIntHashMap slotsById;
+    private final int capacity;
+    private Task[] tasks;
+    private int[] prev;
+    private int[] next;
+    private int head = NONE;
+    private int tail = NONE;
+    // Свободные ячейки связаны через next
+    private int freeHead = NONE;
+    // Ячейки с номером от used и дальше ещё ни разу не выдавались
+    private int used;
+    private int size;
+
+    public InMemoryHistoryManager() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    // При переполнении самый старый просмотр вытесняется за O(1)
+    public InMemoryHistoryManager(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Размер истории должен быть положительным.");
         }
+        this.capacity = capacity;
+        int slots = Math.min(capacity, INITIAL_SLOTS);
+        this.tasks = new Task[slots];
+        this.prev = new int[slots];
+        this.next = new int[slots];
+        this.slotsById = new IntIntHashMap(slots);
     }
 
-    // Метод для добавления задачи в конец списка
-    private void linkLast(Task task) {
-        Node newNode = new Node(task);
-        if (tail == null) {
-            head = tail = newNode;
+    // Метод для добавления ячейки в конец списка
+    private void linkLast(int slot) {
+        prev[slot] = tail;
+        next[slot] = NONE;
+        if (tail == NONE) {
+            head = slot;
         } else {
-            tail.next = newNode;
-            newNode.prev = tail;
-            tail = newNode;
+            next[tail] = slot;
         }
-        historyMap.put(task.getId(), newNode);
+        tail = slot;
     }
 
-    // Метод для удаления узла из списка
-    private void removeNode(Node node) {
-        if (node == null) return;
-
-        if (node.prev != null) {
-            node.prev.next = node.next;
+    // Метод для исключения ячейки из списка
+    private void unlink(int slot) {
+        if (prev[slot] != NONE) {
+            next[prev[slot]] = next[slot];
         } else {
-            head = node.next;
+            head = next[slot];
         }
 
-        if (node.next != null) {
-            node.next.prev = node.prev;
+        if (next[slot] != NONE) {
+            prev[next[slot]] = prev[slot];
         } else {
-            tail = node.prev;
+            tail = prev[slot];
         }
+    }
 
-        historyMap.remove(node.task.getId());
+    // Ячейка для нового просмотра: свободная, новая или (при заполненной истории) ячейка самого старого
+    private int allocate() {
+        if (size == capacity) {
+            int oldest = head;
+            unlink(oldest);
+            slotsById.remove(tasks[oldest].getId());
+            size--;
+            return oldest;
+        }
+        if (freeHead != NONE) {
+            int slot = freeHead;
+            freeHead = next[slot];
+            return slot;
+        }
+        if (used == tasks.length) {
+            int grown = (int) Math.min(capacity, 2L * tasks.length);
+            tasks = Arrays.copyOf(tasks, grown);
+            prev = Arrays.copyOf(prev, grown);
+            next = Arrays.copyOf(next, grown);
+        }
+        return used++;
     }
 
     @Override
-    public void add(Task task) {
+    public synchronized void add(Task task) {
         if (task == null) return;
 
-        // Удаляем старый просмотр задачи, если он существует
-        if (historyMap.containsKey(task.getId())) {
-            removeNode(historyMap.get(task.getId()));
+        int slot = slotsById.get(task.getId());
+        if (slot != IntIntHashMap.MISSING) {
+            // Повторный просмотр: переносим ячейку в конец
+            unlink(slot);
+        } else {
+            slot = allocate();
+            slotsById.put(task.getId(), slot);
+            size++;
+        }
+        tasks[slot] = task;
+        linkLast(slot);
+    }
+
+    @Override
+    public synchronized void remove(int id) {
+        int slot = slotsById.remove(id);
+        if (slot == IntIntHashMap.MISSING) {
+            return;
         }
+        unlink(slot);
+        tasks[slot] = null;
+        next[slot] = freeHead;
+        freeHead = slot;
+        size--;
+    }
 
-        // Добавляем задачу в конец списка
-        linkLast(task);
+    // Список фиксированной длины поверх заполненного массива, без повторного копирования
+    @Override
+    public synchronized List<Task> getHistory() {
+        return collect(head, size);
     }
 
     @Override
-    public void remove(int id) {
-        removeNode(historyMap.get(id));
+    public int getCapacity() {
+        return capacity;
     }
 
+    // Начало ищется обходом с конца списка: стоимость зависит от limit, а не от размера истории
     @Override
-    public List<Task> getHistory() {
-        List<Task> history = new ArrayList<>();
-        Node current = head;
-        while (current != null) {
-            history.add(current.task);
-            current = current.next;
+    public synchronized List<Task> getHistory(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Лимит не может быть отрицательным.");
+        }
+        int count = Math.min(limit, size);
+        int slot = tail;
+        for (int i = 1; i < count; i++) {
+            slot = prev[slot];
+        }
+        return collect(slot, count);
+    }
+
+    // Изменяемая копия: вызывающий код может менять список, как раньше
+    private List<Task> collect(int slot, int count) {
+        List<Task> history = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            history.add(tasks[slot]);
+            slot = next[slot];
         }
         return history;
     }
@@ -3,85 +3,206 @@ package tasktracker.manager;
 import tasktracker.tasks.Task;
 import tasktracker.tasks.Epic;
 import tasktracker.tasks.Subtask;
+import tasktracker.util.IntObjectHashMap;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class InMemoryTaskManager implements TaskManager {
-    private final Map<Integer, Task> tasks = new HashMap<>();
-    private final Map<Integer, Epic> epics = new HashMap<>();
-    private final Map<Integer, Subtask> subtasks = new HashMap<>();
-    private final HistoryManager historyManager = Managers.getDefaultHistory();
+    // Таблицы по id без упаковки ключей в Integer и без отдельного объекта на каждую запись
+    private final IntObjectHashMap<Task> tasks = new IntObjectHashMap<>();
+    private final IntObjectHashMap<Epic> epics = new IntObjectHashMap<>();
+    private final IntObjectHashMap<Subtask> subtasks = new IntObjectHashMap<>();
+    private final HistoryManager historyManager;
 
-    private final Set<Task> prioritizedTasks = new TreeSet<>((task1, task2) -> {
-        if (task1.getStartTime() == null && task2.getStartTime() == null) return 0;
-        if (task1.getStartTime() == null) return 1;
-        if (task2.getStartTime() == null) return -1;
-        return task1.getStartTime().compareTo(task2.getStartTime());
-    });
+    // Запланированные задачи и подзадачи в порядке времени начала
+    private final IntervalIndex prioritizedTasks = new IntervalIndex();
+    // Задачи без времени начала идут в конце приоритетного списка в порядке добавления
+    private final Map<Integer, Task> unscheduledTasks = new LinkedHashMap<>();
 
-    private int idCounter = 1;
+    // Атомарный счётчик: id можно получать из нескольких потоков без блокировки менеджера
+    private final AtomicInteger idCounter = new AtomicInteger(1);
+
+    private final List<TaskChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    public InMemoryTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    // Например, история с другим размером: new InMemoryHistoryManager(capacity)
+    public InMemoryTaskManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+    }
 
     // Генерация ID
     public int generateId() {
-        return idCounter++;
+        return idCounter.getAndIncrement();
     }
 
-    // Проверка пересечения задач
-    private boolean isOverlapping(Task task1, Task task2) {
-        if (task1.getStartTime() == null || task2.getStartTime() == null) {
-            return false;
+    // Новый ID, если id == 0; явно заданный id сдвигает счётчик, чтобы он не был выдан повторно
+    private void assignId(Task task) {
+        if (task.getId() == 0) {
+            task.setId(generateId());
+        } else {
+            idCounter.accumulateAndGet(task.getId() + 1, Math::max);
         }
-        LocalDateTime start1 = task1.getStartTime();
-        LocalDateTime end1 = task1.getEndTime();
-        LocalDateTime start2 = task2.getStartTime();
-        LocalDateTime end2 = task2.getEndTime();
-
-        return start1.isBefore(end2) && start2.isBefore(end1);
     }
 
+    // Проверка пересечения с уже запланированными задачами (текущая задача исключается)
     private boolean isValidTask(Task newTask) {
-        return prioritizedTasks.stream()
-                .filter(existingTask -> existingTask.getId() != newTask.getId()) // Исключаем текущую задачу
-                .noneMatch(existingTask -> isOverlapping(newTask, existingTask));
+        return !prioritizedTasks.hasOverlap(newTask);
+    }
+
+    private void addPrioritized(Task task) {
+        prioritizedTasks.add(task);
+        if (task.getStartTime() == null) {
+            unscheduledTasks.put(task.getId(), task);
+        } else {
+            unscheduledTasks.remove(task.getId());
+        }
+    }
+
+    private void removePrioritized(int id) {
+        prioritizedTasks.remove(id);
+        unscheduledTasks.remove(id);
+    }
+
+    @Override
+    public void addChangeListener(TaskChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    @Override
+    public void removeChangeListener(TaskChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    @Override
+    public void close() {
+        historyManager.close();
+    }
+
+    protected int historyCapacity() {
+        return historyManager.getCapacity();
+    }
+
+    // История со всеми уже записанными просмотрами, даже если история применяет их асинхронно
+    protected List<Task> settledHistory() {
+        historyManager.flush();
+        return historyManager.getHistory();
+    }
+
+    private void fireChanged(Task task) {
+        for (TaskChangeListener listener : changeListeners) {
+            listener.taskChanged(task);
+        }
+    }
+
+    private void fireRemoved(int id) {
+        for (TaskChangeListener listener : changeListeners) {
+            listener.taskRemoved(id);
+        }
+    }
+
+    // Массовое восстановление сохранённых задач в пустой менеджер: записи кладутся прямо в таблицы,
+    // без проверки каждой на пересечение и без истории; индексы и статусы эпиков строятся один раз в конце
+    protected void restore(Collection<? extends Task> loaded) {
+        int maxId = 0;
+        for (Task task : loaded) {
+            maxId = Math.max(maxId, task.getId());
+            if (task instanceof Epic) {
+                epics.put(task.getId(), (Epic) task);
+            } else if (task instanceof Subtask) {
+                subtasks.put(task.getId(), (Subtask) task);
+            } else {
+                tasks.put(task.getId(), task);
+                if (task.getStartTime() == null) {
+                    unscheduledTasks.put(task.getId(), task);
+                }
+            }
+        }
+        for (Task task : loaded) {
+            if (task instanceof Subtask) {
+                Subtask subtask = (Subtask) task;
+                Epic epic = epics.get(subtask.getEpicId());
+                if (epic == null) {
+                    throw new IllegalArgumentException("Подзадача " + subtask.getId()
+                            + " ссылается на несуществующий эпик " + subtask.getEpicId());
+                }
+                epic.addSubtask(subtask);
+            }
+        }
+
+        List<Task> scheduled = new ArrayList<>(tasks.size() + subtasks.size());
+        scheduled.addAll(tasks.values());
+        scheduled.addAll(subtasks.values());
+        prioritizedTasks.build(scheduled);
+
+        idCounter.accumulateAndGet(maxId + 1, Math::max);
+    }
+
+    // Восстановление с сохранённым счётчиком: id удалённых задач тоже не выдаются повторно
+    protected void restore(Collection<? extends Task> loaded, int nextId) {
+        restore(loaded);
+        idCounter.accumulateAndGet(nextId, Math::max);
+    }
+
+    // Следующий id без его выдачи (для сохранения счётчика в снимке)
+    protected int peekNextId() {
+        return idCounter.get();
+    }
+
+    // Восстановление истории просмотров по id (от старых к новым); отсутствующие id пропускаются
+    protected void restoreHistory(List<Integer> ids) {
+        for (int id : ids) {
+            Task task = tasks.get(id);
+            if (task == null) {
+                task = epics.get(id);
+            }
+            if (task == null) {
+                task = subtasks.get(id);
+            }
+            if (task != null) {
+                historyManager.add(task);
+            }
+        }
     }
 
     // Создание задач
     @Override
     public void createTask(Task task) {
-        if (task.getId() == 0) {
-            task.setId(generateId()); // Генерируем новый ID, если id == 0
-        }
+        assignId(task);
 
         if (!isValidTask(task)) {
             throw new IllegalArgumentException("Задача пересекается с другой задачей по времени выполнения.");
         }
         tasks.put(task.getId(), task);
-        prioritizedTasks.add(task);
+        addPrioritized(task);
+        fireChanged(task);
     }
 
     @Override
     public void createEpic(Epic epic) {
-        if (epic.getId() == 0) {
-            epic.setId(generateId()); // Генерируем новый ID для эпика, если id == 0
-        }
+        assignId(epic);
         epics.put(epic.getId(), epic);
+        fireChanged(epic);
     }
 
     @Override
     public void createSubtask(Subtask subtask) {
-        if (subtask.getId() == 0) {
-            subtask.setId(generateId()); // Генерируем новый ID для подзадачи, если id == 0
-        }
+        assignId(subtask);
         Epic epic = epics.get(subtask.getEpicId());
         if (epic != null && isValidTask(subtask)) {
+            // Сначала эпик: если он отклонит подзадачу, таблицы и индекс останутся нетронутыми
+            epic.addSubtask(subtask);
             subtasks.put(subtask.getId(), subtask);
-            if (subtask.getStartTime() != null) {
-                prioritizedTasks.add(subtask);
-            }
-            epic.addSubtask(subtask.getId());
-            epic.updateStatus(subtasks);
+            prioritizedTasks.add(subtask);
+            fireChanged(subtask);
+            // Статус и время эпика пересчитаны
+            fireChanged(epic);
         } else {
             throw new IllegalArgumentException("Подзадача пересекается с другой задачей по времени выполнения.");
         }
@@ -91,12 +212,10 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public void updateTask(Task task) {
         if (tasks.containsKey(task.getId()) && isValidTask(task)) {
-            // Удаляем старую версию задачи из приоритетного набора, прежде чем добавить обновлённую
-            prioritizedTasks.removeIf(t -> t.getId() == task.getId());
+            // Индекс заменяет старую версию задачи по id
             tasks.put(task.getId(), task);
-            if (task.getStartTime() != null) {
-                prioritizedTasks.add(task);
-            }
+            addPrioritized(task);
+            fireChanged(task);
         } else {
             throw new IllegalArgumentException("Задача пересекается с другой задачей по времени выполнения.");
         }
@@ -104,16 +223,31 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void updateSubtask(Subtask subtask) {
-        if (subtasks.containsKey(subtask.getId()) && isValidTask(subtask)) {
-            prioritizedTasks.removeIf(t -> t.getId() == subtask.getId());
-            subtasks.put(subtask.getId(), subtask);
-            if (subtask.getStartTime() != null) {
-                prioritizedTasks.add(subtask);
-            }
+        Subtask previous = subtasks.get(subtask.getId());
+        if (previous != null && isValidTask(subtask)) {
+            // Сначала эпики, затем таблицы: отказ эпика не оставляет подзадачу опубликованной наполовину
             Epic epic = epics.get(subtask.getEpicId());
+            Epic previousEpic = epics.get(previous.getEpicId());
+            if (epic != null) {
+                if (previousEpic != epic) {
+                    // Подзадача перенесена в другой эпик
+                    epic.addSubtask(subtask);
+                    if (previousEpic != null) {
+                        previousEpic.removeSubtask(subtask.getId());
+                    }
+                } else {
+                    epic.updateSubtask(subtask);
+                }
+            }
+            subtasks.put(subtask.getId(), subtask);
+            prioritizedTasks.add(subtask);
             if (epic != null) {
-                epic.updateStatus(subtasks);
+                if (previousEpic != epic && previousEpic != null) {
+                    fireChanged(previousEpic);
+                }
+                fireChanged(epic);
             }
+            fireChanged(subtask);
         } else {
             throw new IllegalArgumentException("Подзадача пересекается с другой задачей по времени выполнения.");
         }
@@ -121,9 +255,16 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void updateEpic(Epic epic) {
-        if (epics.containsKey(epic.getId())) {
+        Epic existing = epics.get(epic.getId());
+        if (existing != null) {
+            // Список подзадач ведёт менеджер, а не присланный объект эпика
+            if (existing != epic) {
+                epic.copySubtasksFrom(existing, subtasks::get);
+            } else {
+                epic.updateStatus(subtasks::get);
+            }
             epics.put(epic.getId(), epic);
-            epic.updateStatus(subtasks);
+            fireChanged(epic);
         }
     }
 
@@ -155,16 +296,48 @@ public class InMemoryTaskManager implements TaskManager {
         return subtask;
     }
 
+    // Поиск без записи в историю, для сохранения отдельных записей в наследниках
+    protected Task findTask(int id) {
+        return tasks.get(id);
+    }
+
+    protected Epic findEpic(int id) {
+        return epics.get(id);
+    }
+
+    protected Subtask findSubtask(int id) {
+        return subtasks.get(id);
+    }
+
+    @Override
+    public boolean containsTask(int id) {
+        return tasks.containsKey(id);
+    }
+
+    @Override
+    public boolean containsEpic(int id) {
+        return epics.containsKey(id);
+    }
+
+    @Override
+    public boolean containsSubtask(int id) {
+        return subtasks.containsKey(id);
+    }
+
     @Override
     public List<Subtask> getSubtasksOfEpic(int epicId) {
         Epic epic = epics.get(epicId);
         if (epic == null) {
             return Collections.emptyList();
         }
-        return epic.getSubtaskIds().stream()
-                .map(subtasks::get)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        List<Subtask> result = new ArrayList<>(epic.getSubtaskCount());
+        epic.forEachSubtaskId(subtaskId -> {
+            Subtask subtask = subtasks.get(subtaskId);
+            if (subtask != null) {
+                result.add(subtask);
+            }
+        });
+        return result;
     }
 
     @Override
@@ -187,8 +360,9 @@ public class InMemoryTaskManager implements TaskManager {
     public void deleteTaskById(int id) {
         Task task = tasks.remove(id);
         if (task != null) {
-            prioritizedTasks.remove(task);
+            removePrioritized(id);
             historyManager.remove(id);
+            fireRemoved(id);
         }
     }
 
@@ -196,12 +370,16 @@ public class InMemoryTaskManager implements TaskManager {
     public void deleteEpicById(int id) {
         Epic epic = epics.remove(id);
         if (epic != null) {
-            for (int subtaskId : epic.getSubtaskIds()) {
+            epic.forEachSubtaskId(subtaskId -> {
                 Subtask subtask = subtasks.remove(subtaskId);
                 if (subtask != null) {
-                    prioritizedTasks.remove(subtask);
+                    prioritizedTasks.remove(subtaskId);
+                    historyManager.remove(subtaskId);
+                    fireRemoved(subtaskId);
                 }
-            }
+            });
+            historyManager.remove(id);
+            fireRemoved(id);
         }
     }
 
@@ -209,38 +387,53 @@ public class InMemoryTaskManager implements TaskManager {
     public void deleteSubtaskById(int id) {
         Subtask subtask = subtasks.remove(id);
         if (subtask != null) {
-            prioritizedTasks.remove(subtask);
+            prioritizedTasks.remove(id);
             Epic epic = epics.get(subtask.getEpicId());
             if (epic != null) {
                 epic.removeSubtask(id);
-                epic.updateStatus(subtasks);
+                fireChanged(epic);
             }
+            historyManager.remove(id);
+            fireRemoved(id);
         }
     }
 
     @Override
     public void deleteAllTasks() {
-        List<Task> allTasks = new ArrayList<>(tasks.values());
+        tasks.forEachKey(id -> {
+            removePrioritized(id);
+            historyManager.remove(id);
+            fireRemoved(id);
+        });
         tasks.clear();
-        allTasks.forEach(prioritizedTasks::remove);
     }
 
     @Override
     public void deleteAllEpics() {
-        List<Subtask> allSubtasks = new ArrayList<>(subtasks.values());
+        subtasks.forEachKey(id -> {
+            prioritizedTasks.remove(id);
+            historyManager.remove(id);
+            fireRemoved(id);
+        });
         subtasks.clear();
-        allSubtasks.forEach(prioritizedTasks::remove);
+        epics.forEachKey(id -> {
+            historyManager.remove(id);
+            fireRemoved(id);
+        });
         epics.clear();
     }
 
     @Override
     public void deleteAllSubtasks() {
-        List<Subtask> allSubtasks = new ArrayList<>(subtasks.values());
+        subtasks.forEachKey(id -> {
+            prioritizedTasks.remove(id);
+            historyManager.remove(id);
+            fireRemoved(id);
+        });
         subtasks.clear();
-        allSubtasks.forEach(prioritizedTasks::remove);
         for (Epic epic : epics.values()) {
-            epic.getSubtaskIds().clear();
-            epic.updateStatus(subtasks);
+            epic.clearSubtasks();
+            fireChanged(epic);
         }
     }
 
@@ -250,9 +443,136 @@ public class InMemoryTaskManager implements TaskManager {
         return historyManager.getHistory();
     }
 
+    @Override
+    public List<Task> getHistory(int limit) {
+        return historyManager.getHistory(limit);
+    }
+
     // Новый метод: задачи в порядке приоритета
     @Override
     public List<Task> getPrioritizedTasks() {
-        return new ArrayList<>(prioritizedTasks);
+        List<Task> result = new ArrayList<>(prioritizedTasks.size() + unscheduledTasks.size());
+        prioritizedTasks.collectTo(result);
+        result.addAll(unscheduledTasks.values());
+        return result;
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return getTasksBetween(from, to, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Лимит не может быть отрицательным.");
+        }
+        List<Task> result = new ArrayList<>(Math.min(limit, prioritizedTasks.size()));
+        Iterator<Task> iterator = iterateTasksBetween(from, to);
+        while (result.size() < limit && iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> getNextTasks(LocalDateTime after, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Лимит не может быть отрицательным.");
+        }
+        List<Task> result = new ArrayList<>(Math.min(limit, prioritizedTasks.size()));
+        Iterator<Task> iterator = prioritizedTasks.startingFrom(after);
+        while (result.size() < limit && iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    // Итератор читает расписание напрямую и становится недействительным после изменения задач
+    @Override
+    public Iterator<Task> iterateTasksBetween(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Начало интервала позже его конца.");
+        }
+        return prioritizedTasks.overlapping(from, to);
+    }
+
+    // Каждая проверка — поиск промежутка в индексе за O(log n); если найденный промежуток
+    // не укладывается в рабочий день, поиск повторяется с начала следующего рабочего дня.
+    // Индекс промежутков не знает о рабочем времени: ночь и выходные для него — свободные промежутки,
+    // поэтому при занятом рабочем времени каждая итерация сдвигает поиск на один рабочий день,
+    // и поиск стоит O(d * log n), где d — число пропущенных дней
+    @Override
+    public LocalDateTime findFreeSlot(Duration duration, LocalDateTime notBefore, WorkingHours workingHours) {
+        checkSchedulable(duration, workingHours);
+        LocalDateTime candidate = workingHours.nextOpening(notBefore);
+        while (true) {
+            LocalDateTime slot = prioritizedTasks.firstFreeSlot(candidate, duration);
+            LocalDateTime opening = workingHours.nextOpening(slot);
+            if (!opening.equals(slot)) {
+                candidate = opening;
+                continue;
+            }
+            LocalDateTime closing = workingHours.closingOf(slot);
+            if (closing == null || !slot.plus(duration).isAfter(closing)) {
+                return slot;
+            }
+            candidate = workingHours.nextOpening(closing);
+        }
+    }
+
+    @Override
+    public List<Task> autoSchedule(Collection<? extends Task> backlog, LocalDateTime notBefore, WorkingHours workingHours) {
+        // Сначала проверяем всё, из-за чего размещение может быть отклонено, чтобы не оставить
+        // расписание заполненным наполовину. Найденный промежуток свободен, поэтому пересечений не будет
+        for (Task task : backlog) {
+            if (task instanceof Epic) {
+                throw new IllegalArgumentException("Время эпика определяется его подзадачами.");
+            }
+            if (task instanceof Subtask && !epics.containsKey(((Subtask) task).getEpicId())) {
+                throw new IllegalArgumentException("Подзадача " + task.getId()
+                        + " ссылается на несуществующий эпик " + ((Subtask) task).getEpicId());
+            }
+            if (task.getStartTime() == null) {
+                checkSchedulable(task.getDuration(), workingHours);
+            }
+        }
+        List<Task> scheduled = new ArrayList<>();
+        for (Task task : backlog) {
+            if (task.getStartTime() != null) {
+                continue;
+            }
+            task.setStartTime(findFreeSlot(task.getDuration(), notBefore, workingHours));
+            try {
+                if (task instanceof Subtask) {
+                    Subtask subtask = (Subtask) task;
+                    if (subtasks.containsKey(subtask.getId())) {
+                        updateSubtask(subtask);
+                    } else {
+                        createSubtask(subtask);
+                    }
+                } else if (tasks.containsKey(task.getId())) {
+                    updateTask(task);
+                } else {
+                    createTask(task);
+                }
+            } catch (RuntimeException e) {
+                // Объект вызывающего кода не должен остаться со временем, которое не было принято
+                task.setStartTime(null);
+                throw e;
+            }
+            scheduled.add(task);
+        }
+        return scheduled;
+    }
+
+    private static void checkSchedulable(Duration duration, WorkingHours workingHours) {
+        if (duration == null || duration.isNegative()) {
+            throw new IllegalArgumentException("Для планирования у задачи должна быть длительность.");
+        }
+        Duration workingDay = workingHours.workingDay();
+        if (workingDay != null && duration.compareTo(workingDay) > 0) {
+            throw new IllegalArgumentException("Задача не помещается в рабочий день.");
+        }
     }
 }
@@ -0,0 +1,457 @@
+package tasktracker.manager;
+
+import tasktracker.tasks.Task;
+import tasktracker.util.IntObjectHashMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// Индекс запланированных задач: AVL-дерево по времени начала (при равенстве — по окончанию, затем по id),
+// каждый узел хранит максимальное время окончания в своём поддереве.
+// Проверка пересечения, вставка и удаление выполняются за O(log n).
+// Задачи в индексе не пересекаются, поэтому в порядке дерева окончания тоже не убывают
+// (задача нулевой длительности с тем же началом стоит раньше длинной). Это позволяет хранить
+// в узле самый большой промежуток между соседними задачами поддерева и искать свободное время за O(log n).
+class IntervalIndex {
+    private final IntObjectHashMap<Node> nodesById = new IntObjectHashMap<>();
+    private Node root;
+    // Счётчик изменений дерева, чтобы курсор не обходил дерево, перестроенное после его создания
+    private int modCount;
+
+    // Узел хранит копию интервала на момент вставки, поэтому изменение полей задачи
+    // снаружи не ломает порядок в дереве
+    private static class Node {
+        final Task task;
+        final int id;
+        final LocalDateTime start;
+        final LocalDateTime end;
+        LocalDateTime maxEnd;
+        // Самое раннее начало и самый большой промежуток между соседними задачами в поддереве
+        LocalDateTime minStart;
+        Duration maxGap = Duration.ZERO;
+        int height = 1;
+        Node left;
+        Node right;
+
+        Node(Task task) {
+            this.task = task;
+            this.id = task.getId();
+            this.start = task.getStartTime();
+            // Задача без длительности занимает нулевой интервал
+            this.end = task.getEndTime() != null ? task.getEndTime() : start;
+            this.maxEnd = end;
+            this.minStart = start;
+        }
+    }
+
+    // Добавление или замена задачи; задачи без startTime в индекс не попадают
+    void add(Task task) {
+        remove(task.getId());
+        if (task.getStartTime() == null) {
+            return;
+        }
+        Node node = new Node(task);
+        root = insert(root, node);
+        nodesById.put(node.id, node);
+        modCount++;
+    }
+
+    // Построение индекса за один проход: сортировка и сборка сбалансированного дерева
+    // вместо n отдельных вставок. Пересечения проверяются уже на готовом дереве.
+    void build(Collection<? extends Task> items) {
+        clear();
+        List<Node> nodes = new ArrayList<>(items.size());
+        for (Task task : items) {
+            if (task.getStartTime() != null) {
+                nodes.add(new Node(task));
+            }
+        }
+        nodes.sort(IntervalIndex::compare);
+        modCount++;
+        root = build(nodes, 0, nodes.size() - 1);
+        for (Node node : nodes) {
+            nodesById.put(node.id, node);
+        }
+        for (Node node : nodes) {
+            if (hasOverlap(root, node.start, node.end, node.id)) {
+                clear();
+                throw new IllegalArgumentException("Задача пересекается с другой задачей по времени выполнения.");
+            }
+        }
+    }
+
+    void remove(int id) {
+        Node node = nodesById.remove(id);
+        if (node != null) {
+            root = delete(root, node);
+            modCount++;
+        }
+    }
+
+    void clear() {
+        nodesById.clear();
+        root = null;
+        modCount++;
+    }
+
+    int size() {
+        return nodesById.size();
+    }
+
+    // Есть ли в индексе задача (кроме самой task), пересекающаяся с task по времени
+    boolean hasOverlap(Task task) {
+        LocalDateTime start = task.getStartTime();
+        if (start == null) {
+            return false;
+        }
+        LocalDateTime end = task.getEndTime() != null ? task.getEndTime() : start;
+        return hasOverlap(root, start, end, task.getId());
+    }
+
+    // Задачи в порядке времени начала
+    void collectTo(List<Task> result) {
+        collectTo(root, result);
+    }
+
+    // Задачи, пересекающиеся с окном [from, to), в порядке времени начала. Задача нулевой длительности
+    // попадает в окно, если from <= start < to. Граница null означает отсутствие ограничения.
+    // Обход ленивый: стоимость — O(log n) на спуск плюс число выданных задач
+    Iterator<Task> overlapping(LocalDateTime from, LocalDateTime to) {
+        return new Cursor(from, to, false);
+    }
+
+    // Задачи с временем начала не раньше after в порядке времени начала
+    Iterator<Task> startingFrom(LocalDateTime after) {
+        return new Cursor(after, null, true);
+    }
+
+    // Обход дерева по порядку с явным стеком: в стеке лежит левая ветка ещё не выданных узлов,
+    // поддеревья, целиком лежащие до from, отсекаются при спуске
+    private final class Cursor implements Iterator<Task> {
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private final boolean byStart;
+        private final Deque<Node> stack = new ArrayDeque<>();
+        private final int expectedModCount = modCount;
+        private Node next;
+
+        Cursor(LocalDateTime from, LocalDateTime to, boolean byStart) {
+            this.from = from;
+            this.to = to;
+            this.byStart = byStart;
+            descend(root);
+            next = advance();
+        }
+
+        private void descend(Node node) {
+            while (node != null) {
+                if (from != null) {
+                    if (byStart && node.start.isBefore(from)) {
+                        // Узел и его левое поддерево начинаются раньше from
+                        node = node.right;
+                        continue;
+                    }
+                    if (!byStart && node.maxEnd.isBefore(from)) {
+                        // Всё поддерево закончилось до from
+                        return;
+                    }
+                }
+                stack.push(node);
+                node = node.left;
+            }
+        }
+
+        private Node advance() {
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                // Этот и все следующие узлы начинаются не раньше to
+                if (to != null && !node.start.isBefore(to)) {
+                    stack.clear();
+                    return null;
+                }
+                descend(node.right);
+                if (byStart || from == null || node.end.isAfter(from) || !node.start.isBefore(from)) {
+                    return node;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Task next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Task task = next.task;
+            next = advance();
+            return task;
+        }
+    }
+
+    // Самое раннее время s >= notBefore, при котором интервал [s, s + duration) ни с чем не пересекается
+    LocalDateTime firstFreeSlot(LocalDateTime notBefore, Duration duration) {
+        // Если notBefore попадает внутрь задачи, свободное время начинается с её окончания.
+        // Окончания в порядке дерева не убывают, поэтому достаточно последней задачи, начавшейся раньше notBefore.
+        // Задача, начинающаяся ровно в notBefore, учитывается при обходе как промежуток нулевой длины
+        LocalDateTime from = notBefore;
+        Node previous = lastStartingBefore(notBefore);
+        if (previous != null && previous.end.isAfter(from)) {
+            from = previous.end;
+        }
+        GapScan scan = new GapScan(from, duration);
+        LocalDateTime slot = scan.partial(root);
+        // Промежутка нужной длины нет — место есть после последней задачи
+        return slot != null ? slot : scan.previousEnd;
+    }
+
+    private Node lastStartingBefore(LocalDateTime time) {
+        Node result = null;
+        Node node = root;
+        while (node != null) {
+            if (!node.start.isBefore(time)) {
+                node = node.left;
+            } else {
+                result = node;
+                node = node.right;
+            }
+        }
+        return result;
+    }
+
+    // Обход задач, начинающихся не раньше from, по порядку с запоминанием окончания предыдущей.
+    // Поддеревья без подходящего промежутка пропускаются целиком, поэтому просматривается
+    // один путь от корня и не больше одного спуска в поддерево, где промежуток точно есть
+    private static final class GapScan {
+        private final LocalDateTime from;
+        private final Duration duration;
+        private LocalDateTime previousEnd;
+
+        GapScan(LocalDateTime from, Duration duration) {
+            this.from = from;
+            this.duration = duration;
+            this.previousEnd = from;
+        }
+
+        // Поддерево, часть которого начинается раньше from
+        LocalDateTime partial(Node node) {
+            if (node == null) {
+                return null;
+            }
+            if (node.start.isBefore(from)) {
+                return partial(node.right);
+            }
+            LocalDateTime slot = partial(node.left);
+            return slot != null ? slot : visit(node);
+        }
+
+        // Поддерево, целиком лежащее не раньше from
+        LocalDateTime full(Node node) {
+            if (node == null) {
+                return null;
+            }
+            if (fits(node.minStart)) {
+                return previousEnd;
+            }
+            if (node.maxGap.compareTo(duration) < 0) {
+                previousEnd = node.maxEnd;
+                return null;
+            }
+            LocalDateTime slot = full(node.left);
+            return slot != null ? slot : visit(node);
+        }
+
+        private LocalDateTime visit(Node node) {
+            if (fits(node.start)) {
+                return previousEnd;
+            }
+            previousEnd = node.end;
+            return full(node.right);
+        }
+
+        private boolean fits(LocalDateTime nextStart) {
+            return !previousEnd.plus(duration).isAfter(nextStart);
+        }
+    }
+
+    private boolean hasOverlap(Node node, LocalDateTime start, LocalDateTime end, int excludeId) {
+        // В поддереве нет интервалов, заканчивающихся позже start
+        if (node == null || !node.maxEnd.isAfter(start)) {
+            return false;
+        }
+        if (hasOverlap(node.left, start, end, excludeId)) {
+            return true;
+        }
+        // Этот узел и всё правое поддерево начинаются не раньше end
+        if (!node.start.isBefore(end)) {
+            return false;
+        }
+        if (node.id != excludeId && node.end.isAfter(start)) {
+            return true;
+        }
+        return hasOverlap(node.right, start, end, excludeId);
+    }
+
+    private void collectTo(Node node, List<Task> result) {
+        if (node == null) {
+            return;
+        }
+        collectTo(node.left, result);
+        result.add(node.task);
+        collectTo(node.right, result);
+    }
+
+    private static Node build(List<Node> nodes, int from, int to) {
+        if (from > to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        Node node = nodes.get(mid);
+        node.left = build(nodes, from, mid - 1);
+        node.right = build(nodes, mid + 1, to);
+        update(node);
+        return node;
+    }
+
+    private static int compare(Node a, Node b) {
+        int cmp = a.start.compareTo(b.start);
+        if (cmp == 0) {
+            cmp = a.end.compareTo(b.end);
+        }
+        return cmp != 0 ? cmp : Integer.compare(a.id, b.id);
+    }
+
+    private Node insert(Node node, Node newNode) {
+        if (node == null) {
+            return newNode;
+        }
+        if (compare(newNode, node) < 0) {
+            node.left = insert(node.left, newNode);
+        } else {
+            node.right = insert(node.right, newNode);
+        }
+        return balance(node);
+    }
+
+    private Node delete(Node node, Node target) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(target, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, target);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, target);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            // Заменяем удаляемый узел минимальным из правого поддерева
+            Node min = node.right;
+            while (min.left != null) {
+                min = min.left;
+            }
+            min.right = deleteMin(node.right);
+            min.left = node.left;
+            node = min;
+        }
+        return balance(node);
+    }
+
+    private Node deleteMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        LocalDateTime maxEnd = node.end;
+        LocalDateTime minStart = node.start;
+        Duration maxGap = Duration.ZERO;
+        if (node.left != null) {
+            if (node.left.maxEnd.isAfter(maxEnd)) {
+                maxEnd = node.left.maxEnd;
+            }
+            minStart = node.left.minStart;
+            maxGap = max(node.left.maxGap, gap(node.left.maxEnd, node.start));
+        }
+        if (node.right != null) {
+            if (node.right.maxEnd.isAfter(maxEnd)) {
+                maxEnd = node.right.maxEnd;
+            }
+            maxGap = max(maxGap, max(node.right.maxGap, gap(node.end, node.right.minStart)));
+        }
+        node.maxEnd = maxEnd;
+        node.minStart = minStart;
+        node.maxGap = maxGap;
+    }
+
+    private static Duration gap(LocalDateTime end, LocalDateTime nextStart) {
+        return end.isBefore(nextStart) ? Duration.between(end, nextStart) : Duration.ZERO;
+    }
+
+    private static Duration max(Duration a, Duration b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+}
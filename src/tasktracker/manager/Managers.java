@@ -4,7 +4,9 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import tasktracker.http.adapters.DurationAdapter;
 import tasktracker.http.adapters.LocalDateTimeAdapter;
+import tasktracker.http.adapters.TaskAdapterFactory;
 
+import java.io.File;
 import java.time.Duration;
 import java.time.LocalDateTime;
 
@@ -14,20 +16,40 @@ public class Managers {
         return new InMemoryTaskManager();
     }
 
+    // Менеджер для многопоточного использования, например HTTP-сервером.
+    // Просмотры записываются в историю асинхронно, чтобы чтения не ждали друг друга на истории
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager(new InMemoryTaskManager(new AsyncHistoryManager(getDefaultHistory())));
+    }
+
+    // То же с хранением в файле: существующая доска загружается так же, как loadFromFile(File)
+    // (в том числе сегментированная), иначе создаётся пустая в режиме журнала.
+    // Политика определяет, сколько подтверждённых изменений может пропасть при сбое (см. DurabilityPolicy)
+    public static TaskManager getConcurrent(File file, DurabilityPolicy policy) {
+        HistoryManager history = new AsyncHistoryManager(getDefaultHistory());
+        FileBackedTaskManager manager = FileBackedTaskManager.exists(file)
+                ? FileBackedTaskManager.loadFromFile(file, policy, history)
+                : FileBackedTaskManager.withJournal(file, policy, history);
+        return new ConcurrentTaskManager(manager);
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
 
-    // Добавляем метод для создания и получения настроенного Gson
-    private static Gson gson;
+    public static HistoryManager getDefaultHistory(int capacity) {
+        return new InMemoryHistoryManager(capacity);
+    }
+
+    // Настроенный Gson; создаётся один раз при загрузке класса, поэтому безопасен для любых потоков
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(Duration.class, new DurationAdapter())
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+            // Task, Epic и Subtask — без рефлексии и с полем type
+            .registerTypeAdapterFactory(new TaskAdapterFactory())
+            .create();
 
     public static Gson getGson() {
-        if (gson == null) {
-            gson = new GsonBuilder()
-                    .registerTypeAdapter(Duration.class, new DurationAdapter())
-                    .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
-                    .create();
-        }
-        return gson;
+        return GSON;
     }
 }
@@ -0,0 +1,229 @@
+package tasktracker.manager;
+
+import tasktracker.tasks.Task;
+import tasktracker.util.IntHashSet;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// Истории просмотров по клиентам (например, по заголовку запроса); у каждого клиента своя ограниченная
+// история. Общей блокировки нет: сессии лежат в ConcurrentHashMap, а историю и индекс сессии охраняет
+// монитор самой сессии, поэтому просмотры разных клиентов не ждут друг друга.
+// Вытеснение приблизительное (approximate LRU): у сессии есть только время последнего обращения,
+// а лишние и просроченные сессии убирает обход всех сессий. Он запускается, когда сессий больше
+// maxSessions или с прошлого обхода прошёл idleTimeout, выполняется одним потоком (остальные его не ждут)
+// и убирает самые давние сессии с запасом в maxSessions / 16, так что в среднем на новую сессию
+// приходится O(log n). Между обходами число сессий может ненадолго превысить лимит.
+// Для удаления задачи ведётся обратный индекс id задачи -> сессии, в историях которых она может быть.
+public class SessionHistoryManager {
+    public static final int DEFAULT_CAPACITY = 100;
+    public static final int DEFAULT_MAX_SESSIONS = 10_000;
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    // id задачи -> сессии, в которых она просматривалась; лишние записи допустимы и чистятся при пересборке.
+    // Множество создаётся и удаляется атомарно через compute по ключу
+    private final ConcurrentHashMap<Integer, Set<Session>> sessionsByTask = new ConcurrentHashMap<>();
+    private final int capacity;
+    private final long idleTimeoutNanos;
+    private final int maxSessions;
+    private final LongSupplier clock;
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    private volatile long lastSweep;
+
+    private static final class Session {
+        final String clientId;
+        final HistoryManager history;
+        // Id, под которыми сессия записана в обратном индексе; может содержать уже вытесненные из истории.
+        // Охраняется монитором сессии, как и флаг removed
+        final IntHashSet indexedIds = new IntHashSet();
+        volatile long lastAccess;
+        boolean removed;
+
+        Session(String clientId, int capacity, long now) {
+            this.clientId = clientId;
+            this.history = new InMemoryHistoryManager(capacity);
+            this.lastAccess = now;
+        }
+    }
+
+    public SessionHistoryManager() {
+        this(DEFAULT_CAPACITY, DEFAULT_IDLE_TIMEOUT, DEFAULT_MAX_SESSIONS);
+    }
+
+    public SessionHistoryManager(int capacity, Duration idleTimeout, int maxSessions) {
+        this(capacity, idleTimeout, maxSessions, System::nanoTime);
+    }
+
+    SessionHistoryManager(int capacity, Duration idleTimeout, int maxSessions, LongSupplier clock) {
+        if (capacity < 1 || maxSessions < 1 || idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("Параметры сессий должны быть положительными.");
+        }
+        this.capacity = capacity;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.maxSessions = maxSessions;
+        this.clock = clock;
+        this.lastSweep = clock.getAsLong();
+    }
+
+    // Просмотр задачи клиентом; без идентификатора клиента ничего не записывается
+    public void add(String clientId, Task task) {
+        if (clientId == null || task == null) {
+            return;
+        }
+        long now = clock.getAsLong();
+        while (true) {
+            Session session = existing(clientId, now);
+            if (session == null) {
+                session = sessions.computeIfAbsent(clientId, id -> new Session(id, capacity, now));
+            }
+            synchronized (session) {
+                if (session.removed) {
+                    // Сессию только что вытеснил обход — создаём новую
+                    continue;
+                }
+                session.lastAccess = now;
+                session.history.add(task);
+                if (session.indexedIds.add(task.getId())) {
+                    index(session, task.getId());
+                    // Вытесненные из истории id остаются в индексе; когда их набирается столько же, сколько
+                    // помещается в историю, индекс сессии пересобирается — в среднем O(1) на просмотр
+                    if (session.indexedIds.size() > 2 * capacity) {
+                        reindex(session);
+                    }
+                }
+            }
+            break;
+        }
+        if (sessions.size() > maxSessions || now - lastSweep > idleTimeoutNanos) {
+            sweep(now);
+        }
+    }
+
+    // История клиента; для неизвестного клиента сессия не создаётся
+    public List<Task> getHistory(String clientId) {
+        Session session = existing(clientId, clock.getAsLong());
+        return session == null ? Collections.emptyList() : session.history.getHistory();
+    }
+
+    public List<Task> getHistory(String clientId, int limit) {
+        Session session = existing(clientId, clock.getAsLong());
+        return session == null ? Collections.emptyList() : session.history.getHistory(limit);
+    }
+
+    // Удалённая задача убирается только из тех сессий, где она просматривалась
+    public void remove(int id) {
+        Set<Session> viewers = sessionsByTask.remove(id);
+        if (viewers == null) {
+            return;
+        }
+        for (Session session : viewers) {
+            synchronized (session) {
+                session.history.remove(id);
+                session.indexedIds.remove(id);
+            }
+        }
+    }
+
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    // Сессия клиента с отметкой доступа; просроченная сессия удаляется
+    private Session existing(String clientId, long now) {
+        if (clientId == null) {
+            return null;
+        }
+        Session session = sessions.get(clientId);
+        if (session == null) {
+            return null;
+        }
+        if (isExpired(session, now)) {
+            removeSession(session);
+            return null;
+        }
+        session.lastAccess = now;
+        return session;
+    }
+
+    private boolean isExpired(Session session, long now) {
+        return now - session.lastAccess > idleTimeoutNanos;
+    }
+
+    // Обход всех сессий: удаляются просроченные, а если сессий всё ещё больше лимита — самые давние,
+    // пока их не станет maxSessions - maxSessions / 16. Если обход уже идёт в другом потоке, он пропускается
+    private void sweep(long now) {
+        if (!sweepLock.tryLock()) {
+            return;
+        }
+        try {
+            lastSweep = now;
+            for (Session session : sessions.values()) {
+                if (isExpired(session, now)) {
+                    removeSession(session);
+                }
+            }
+            int excess = sessions.size() - (maxSessions - maxSessions / 16);
+            if (sessions.size() <= maxSessions || excess <= 0) {
+                return;
+            }
+            long[] accessTimes = sessions.values().stream().mapToLong(session -> session.lastAccess).toArray();
+            Arrays.sort(accessTimes);
+            long threshold = accessTimes[Math.min(excess, accessTimes.length) - 1];
+            for (Session session : sessions.values()) {
+                if (excess > 0 && session.lastAccess <= threshold) {
+                    removeSession(session);
+                    excess--;
+                }
+            }
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    private void removeSession(Session session) {
+        synchronized (session) {
+            if (session.removed) {
+                return;
+            }
+            session.removed = true;
+            session.indexedIds.forEach(id -> unindex(session, id));
+            session.indexedIds.clear();
+        }
+        sessions.remove(session.clientId, session);
+    }
+
+    private void index(Session session, int id) {
+        sessionsByTask.compute(id, (key, viewers) -> {
+            Set<Session> result = viewers != null ? viewers : ConcurrentHashMap.newKeySet();
+            result.add(session);
+            return result;
+        });
+    }
+
+    private void unindex(Session session, int id) {
+        sessionsByTask.computeIfPresent(id, (key, viewers) -> {
+            viewers.remove(session);
+            return viewers.isEmpty() ? null : viewers;
+        });
+    }
+
+    private void reindex(Session session) {
+        IntHashSet current = new IntHashSet();
+        for (Task task : session.history.getHistory()) {
+            current.add(task.getId());
+        }
+        for (int id : session.indexedIds.toArray()) {
+            if (!current.contains(id)) {
+                session.indexedIds.remove(id);
+                unindex(session, id);
+            }
+        }
+    }
+}
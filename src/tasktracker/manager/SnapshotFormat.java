@@ -0,0 +1,9 @@
+package tasktracker.manager;
+
+// Формат файла снимка FileBackedTaskManager. При загрузке формат определяется по первым байтам файла
+public enum SnapshotFormat {
+    // Текстовый CSV со строкой заголовков столбцов
+    CSV,
+    // Двоичный формат: заголовок со счётчиком id, таблица строк и записи фиксированной длины
+    BINARY
+}
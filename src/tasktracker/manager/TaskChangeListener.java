@@ -0,0 +1,14 @@
+package tasktracker.manager;
+
+import tasktracker.tasks.Task;
+
+// Уведомление об изменении задачи, эпика или подзадачи через менеджер: создание, обновление, удаление,
+// а также пересчёт эпика при изменении его подзадач. Вызывается внутри изменяющей операции,
+// поэтому должен работать быстро и не обращаться к менеджеру
+public interface TaskChangeListener {
+    // Запись создана или изменена; task — объект, который теперь хранит менеджер. Обновление заменяет
+    // объект, поэтому прежний объект с тем же id (например, оставшийся в истории) больше не актуален
+    void taskChanged(Task task);
+
+    void taskRemoved(int id);
+}
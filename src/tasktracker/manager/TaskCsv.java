@@ -0,0 +1,247 @@
+package tasktracker.manager;
+
+import tasktracker.status.TaskStatus;
+import tasktracker.tasks.Epic;
+import tasktracker.tasks.Subtask;
+import tasktracker.tasks.Task;
+import tasktracker.tasks.TaskType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+// CSV по RFC 4180 для файла задач и записей журнала. Поле берётся в кавычки, если содержит запятую,
+// кавычку или перевод строки, кавычка внутри поля удваивается. Файлы, записанные до появления кавычек,
+// узнаются по отсутствию строки контрольной суммы и читаются по старым правилам: поле — всё между
+// запятыми, кавычки — обычные символы (иначе название, начинающееся с кавычки, исказилось бы).
+final class TaskCsv {
+    static final String HEADER = "id,type,name,status,description,duration,startTime,epic";
+    // Последняя строка снимка: CRC32 всех байт файла до неё
+    private static final String CHECKSUM_PREFIX = "#crc,";
+
+    private TaskCsv() {
+    }
+
+    static String format(Task task) {
+        StringBuilder out = new StringBuilder(64);
+        append(out, task);
+        return out.toString();
+    }
+
+    static void append(StringBuilder out, Task task) {
+        TaskType type = TaskType.TASK;
+        if (task instanceof Epic) {
+            type = TaskType.EPIC;
+        } else if (task instanceof Subtask) {
+            type = TaskType.SUBTASK;
+        }
+        out.append(task.getId()).append(',').append(type).append(',');
+        appendField(out, String.valueOf(task.getTitle()));
+        out.append(',').append(task.getStatus()).append(',');
+        appendField(out, String.valueOf(task.getDescription()));
+        out.append(',');
+        if (task.getDuration() != null) {
+            out.append(task.getDuration().toMinutes());
+        }
+        out.append(',');
+        if (task.getStartTime() != null) {
+            out.append(task.getStartTime());
+        }
+        out.append(',');
+        if (task instanceof Subtask) {
+            out.append(((Subtask) task).getEpicId());
+        }
+    }
+
+    static void appendField(StringBuilder out, String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    static String checksumLine(long crc) {
+        return CHECKSUM_PREFIX + String.format("%08x", crc) + "\n";
+    }
+
+    // Значение из строки контрольной суммы или null, если строка ею не является
+    static Long parseChecksumLine(String line) {
+        if (line.length() != checksumLine(0).length() || !line.startsWith(CHECKSUM_PREFIX) || !line.endsWith("\n")) {
+            return null;
+        }
+        try {
+            return Long.parseLong(line.substring(CHECKSUM_PREFIX.length(), line.length() - 1), 16);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Разбор одной записи (например, из журнала)
+    static Task parse(String record) {
+        Reader reader = new Reader(new StringReader(record));
+        if (!reader.next()) {
+            throw new IllegalArgumentException("Пустая строка CSV");
+        }
+        return reader.toTask();
+    }
+
+    // Потоковое чтение записей: символы читаются блоками в один буфер, поля собираются в одном StringBuilder,
+    // массив полей переиспользуется между записями. Память не зависит от размера файла.
+    static final class Reader implements Closeable {
+        private final java.io.Reader in;
+        // false — старый формат без кавычек
+        private final boolean quoted;
+        private final char[] buffer = new char[8192];
+        private int position;
+        private int limit;
+        private boolean eof;
+        private final StringBuilder field = new StringBuilder();
+        private String[] fields = new String[8];
+        private int count;
+
+        Reader(java.io.Reader in) {
+            this(in, true);
+        }
+
+        Reader(java.io.Reader in, boolean quoted) {
+            this.in = in;
+            this.quoted = quoted;
+        }
+
+        // Переход к следующей записи; false в конце данных
+        boolean next() {
+            count = 0;
+            int c = read();
+            if (c == -1) {
+                return false;
+            }
+            while (true) {
+                field.setLength(0);
+                if (quoted && c == '"') {
+                    while (true) {
+                        c = read();
+                        if (c == -1) {
+                            throw new IllegalArgumentException("Незакрытая кавычка в CSV");
+                        }
+                        if (c == '"') {
+                            c = read();
+                            if (c != '"') {
+                                break;
+                            }
+                        }
+                        field.append((char) c);
+                    }
+                }
+                while (c != ',' && c != '\n' && c != '\r' && c != -1) {
+                    field.append((char) c);
+                    c = read();
+                }
+                add(field.toString());
+                if (c != ',') {
+                    // Одиночный \r тоже завершает запись; символ после него возвращается в буфер
+                    if (c == '\r' && read() != '\n' && !eof) {
+                        position--;
+                    }
+                    return true;
+                }
+                c = read();
+            }
+        }
+
+        int fieldCount() {
+            return count;
+        }
+
+        String field(int index) {
+            return fields[index];
+        }
+
+        // Пустая строка файла
+        boolean isBlank() {
+            return count == 1 && fields[0].isEmpty();
+        }
+
+        Task toTask() {
+            if (count < 5) { // Минимум 5 полей: id, type, name, status, description
+                throw new IllegalArgumentException("Некорректная строка CSV: " + this);
+            }
+            int id = Integer.parseInt(fields[0]);
+            TaskType type = TaskType.valueOf(fields[1]);
+            String name = fields[2];
+            TaskStatus status = TaskStatus.valueOf(fields[3]);
+            String description = fields[4];
+            Duration duration = count > 5 && !fields[5].isEmpty() ? Duration.ofMinutes(Long.parseLong(fields[5])) : null;
+            LocalDateTime startTime = count > 6 && !fields[6].isEmpty() ? LocalDateTime.parse(fields[6]) : null;
+
+            switch (type) {
+                case EPIC:
+                    return new Epic(name, description, id);
+                case SUBTASK:
+                    if (count < 8 || fields[7].isEmpty()) {
+                        throw new IllegalArgumentException("Некорректная строка CSV для Subtask: " + this);
+                    }
+                    return new Subtask(name, description, id, status, duration, startTime, Integer.parseInt(fields[7]));
+                default:
+                    return new Task(name, description, id, status, duration, startTime);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        @Override
+        public String toString() {
+            return String.join(",", Arrays.asList(fields).subList(0, count));
+        }
+
+        private void add(String value) {
+            if (count == fields.length) {
+                fields = Arrays.copyOf(fields, count * 2);
+            }
+            fields[count++] = value;
+        }
+
+        private int read() {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return buffer[position++];
+        }
+
+        private boolean fill() {
+            if (eof) {
+                return false;
+            }
+            int read;
+            try {
+                read = in.read(buffer, 0, buffer.length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            position = 0;
+            limit = Math.max(read, 0);
+            eof = read <= 0;
+            return !eof;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package tasktracker.manager;
+
+import tasktracker.exceptions.ManagerSaveException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Журнал изменений (write-ahead log) рядом с файлом снимка: каждая операция дописывается
+// одной строкой в конец файла. Первая строка связывает журнал с контрольной суммой снимка,
+// поэтому журнал, уже вошедший в более новый снимок, при загрузке игнорируется.
+// Когда записи передаются ОС и сбрасываются на диск, определяет DurabilityPolicy.
+class TaskJournal {
+    private static final String BASE_PREFIX = "#base,";
+
+    private final Path path;
+    private final DurabilityPolicy policy;
+    // Записи, ещё не переданные ОС (копятся при групповой записи)
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private FileChannel channel;
+    private ScheduledExecutorService flusher;
+    private IOException flushFailure;
+    private int records;
+    private int unsyncedOperations;
+
+    TaskJournal(File snapshotFile, DurabilityPolicy policy) {
+        this.path = fileFor(snapshotFile).toPath();
+        this.policy = policy;
+    }
+
+    // Запуск фоновой записи при групповой записи. Вызывается, когда менеджер уже создан и загружен:
+    // если загрузка или первый снимок не удались, поток не запускается и не остаётся висеть
+    synchronized void start() {
+        if (policy.getMode() == DurabilityPolicy.Mode.GROUP_COMMIT && flusher == null) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "journal-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushInBackground,
+                    policy.getMaxDelayMillis(), policy.getMaxDelayMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    static File fileFor(File snapshotFile) {
+        return new File(snapshotFile.getPath() + ".journal");
+    }
+
+    // Количество записей с момента последнего снимка
+    synchronized int size() {
+        return records;
+    }
+
+    // Сколько подтверждённых операций ещё не сброшено на диск через fsync
+    synchronized int unsyncedOperations() {
+        return unsyncedOperations;
+    }
+
+    // Записи журнала, относящиеся к снимку с контрольной суммой snapshotCrc.
+    // Последняя строка без перевода строки считается недописанной при сбое и отбрасывается.
+    synchronized List<String> read(long snapshotCrc) {
+        if (!Files.exists(path)) {
+            return Collections.emptyList();
+        }
+        try {
+            List<String> lines = splitRecords(Files.readString(path, StandardCharsets.UTF_8));
+            if (lines.isEmpty() || !lines.get(0).equals(BASE_PREFIX + Long.toHexString(snapshotCrc))) {
+                return Collections.emptyList();
+            }
+            List<String> result = lines.subList(1, lines.size());
+            records = result.size();
+            return result;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка чтения журнала", e);
+        }
+    }
+
+    // Записи, завершённые переводом строки вне кавычек: поле CSV в кавычках может содержать перевод строки.
+    // Остаток без завершающего перевода строки — оборванная запись, он отбрасывается
+    private static List<String> splitRecords(String content) {
+        List<String> records = new ArrayList<>();
+        boolean quoted = false;
+        int start = 0;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c == '"') {
+                // Удвоенная кавычка внутри поля переключает состояние дважды
+                quoted = !quoted;
+            } else if (c == '\n' && !quoted) {
+                records.add(content.substring(start, i));
+                start = i + 1;
+            }
+        }
+        return records;
+    }
+
+    // Начало нового журнала для только что записанного снимка. Несброшенные записи уже вошли в снимок
+    // и отбрасываются. Файл заменяется целиком, чтобы при сбое на диске остался либо старый журнал, либо новый
+    synchronized void reset(long snapshotCrc) {
+        pending.reset();
+        closeChannel();
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(out, (BASE_PREFIX + Long.toHexString(snapshotCrc) + "\n").getBytes(StandardCharsets.UTF_8));
+            if (policy.getMode() != DurabilityPolicy.Mode.OS_BUFFERED) {
+                out.force(false);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка создания журнала", e);
+        }
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка создания журнала", e);
+        }
+        records = 0;
+        unsyncedOperations = 0;
+    }
+
+    synchronized void append(String record) {
+        if (flushFailure != null) {
+            throw new ManagerSaveException("Ошибка фоновой записи журнала", flushFailure);
+        }
+        byte[] bytes = (record + "\n").getBytes(StandardCharsets.UTF_8);
+        pending.write(bytes, 0, bytes.length);
+        records++;
+        unsyncedOperations++;
+        try {
+            switch (policy.getMode()) {
+                case SYNC_EVERY_OPERATION:
+                    commit(true);
+                    break;
+                case GROUP_COMMIT:
+                    if (unsyncedOperations >= policy.getMaxOperations()) {
+                        commit(true);
+                    }
+                    break;
+                case OS_BUFFERED:
+                    commit(false);
+                    break;
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка записи в журнал", e);
+        }
+    }
+
+    // Принудительная запись и fsync всего накопленного
+    synchronized void sync() {
+        try {
+            commit(true);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка записи в журнал", e);
+        }
+    }
+
+    synchronized void close() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+            flusher = null;
+        }
+        try {
+            commit(true);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка закрытия журнала", e);
+        } finally {
+            closeChannel();
+        }
+    }
+
+    private synchronized void flushInBackground() {
+        if (unsyncedOperations == 0 || flushFailure != null) {
+            return;
+        }
+        try {
+            commit(true);
+        } catch (IOException e) {
+            // Ошибка будет выброшена при следующей записи
+            flushFailure = e;
+        }
+    }
+
+    private void commit(boolean force) throws IOException {
+        if (pending.size() > 0) {
+            if (channel == null) {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND);
+            }
+            writeFully(channel, pending.toByteArray());
+            pending.reset();
+        }
+        if (force && unsyncedOperations > 0) {
+            channel.force(false);
+            unsyncedOperations = 0;
+        }
+    }
+
+    private static void writeFully(FileChannel out, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка закрытия журнала", e);
+        } finally {
+            channel = null;
+        }
+    }
+}
@@ -3,9 +3,15 @@ package tasktracker.manager;
 import tasktracker.tasks.Task;
 import tasktracker.tasks.Epic;
 import tasktracker.tasks.Subtask;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Supplier;
 
-public interface TaskManager {
+public interface TaskManager extends AutoCloseable {
 
     void createTask(Task task);
 
@@ -25,6 +31,13 @@ public interface TaskManager {
 
     Subtask getSubtaskById(int id);
 
+    // Проверки наличия без записи в историю просмотров
+    boolean containsTask(int id);
+
+    boolean containsEpic(int id);
+
+    boolean containsSubtask(int id);
+
     void updateTask(Task task);
 
     void updateEpic(Epic epic);
@@ -48,8 +61,48 @@ public interface TaskManager {
     // Новый метод для получения истории просмотров
     List<Task> getHistory();
 
+    // Последние limit просмотров
+    List<Task> getHistory(int limit);
+
     int generateId();
 
     // Новый метод: задачи в порядке приоритета
     List<Task> getPrioritizedTasks();
+
+    // Запланированные задачи и подзадачи, пересекающиеся с окном [from, to), в порядке времени начала.
+    // Задачи без времени начала не входят; null в границе означает отсутствие ограничения
+    List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to);
+
+    // Не больше limit первых задач окна; обход расписания останавливается на limit
+    List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to, int limit);
+
+    // Не больше limit запланированных задач, начинающихся не раньше after
+    List<Task> getNextTasks(LocalDateTime after, int limit);
+
+    // Ленивый вариант getTasksBetween: задачи выдаются по мере обхода расписания
+    Iterator<Task> iterateTasksBetween(LocalDateTime from, LocalDateTime to);
+
+    // Самое раннее время начала не раньше notBefore, при котором задача длительностью duration
+    // помещается в рабочее время и ни с чем не пересекается
+    LocalDateTime findFreeSlot(Duration duration, LocalDateTime notBefore, WorkingHours workingHours);
+
+    // Расстановка задач без времени начала по свободным промежуткам в порядке коллекции.
+    // Задачи с заданным временем не переносятся. Возвращает запланированные задачи
+    List<Task> autoSchedule(Collection<? extends Task> tasks, LocalDateTime notBefore, WorkingHours workingHours);
+
+    // Действие над согласованным состоянием менеджера. Менеджер отдаёт свои объекты, а эпики меняются
+    // на месте, поэтому обходить их (например, сериализовать в JSON) нужно внутри read:
+    // ConcurrentTaskManager держит на это время блокировку чтения
+    default <T> T read(Supplier<T> action) {
+        return action.get();
+    }
+
+    // Подписка на изменения задач, например для сброса кешей их представлений
+    void addChangeListener(TaskChangeListener listener);
+
+    void removeChangeListener(TaskChangeListener listener);
+
+    // Освобождение фоновых потоков и файлов менеджера; после close менеджер не используется
+    @Override
+    void close();
 }
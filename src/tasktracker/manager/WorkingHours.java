@@ -0,0 +1,84 @@
+package tasktracker.manager;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+// Рабочее время для автоматического планирования: ежедневный интервал [opening, closing) в рабочие дни.
+// Задача планируется целиком внутри одного рабочего дня.
+public final class WorkingHours {
+    private static final WorkingHours ALWAYS = new WorkingHours(null, null, EnumSet.allOf(DayOfWeek.class));
+
+    private final LocalTime opening;
+    private final LocalTime closing;
+    private final Set<DayOfWeek> days;
+
+    private WorkingHours(LocalTime opening, LocalTime closing, Set<DayOfWeek> days) {
+        this.opening = opening;
+        this.closing = closing;
+        this.days = days;
+    }
+
+    // Без ограничений: задачу можно поставить на любое время
+    public static WorkingHours always() {
+        return ALWAYS;
+    }
+
+    public static WorkingHours daily(LocalTime opening, LocalTime closing) {
+        return of(opening, closing, EnumSet.allOf(DayOfWeek.class));
+    }
+
+    public static WorkingHours weekdays(LocalTime opening, LocalTime closing) {
+        return of(opening, closing, EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY));
+    }
+
+    public static WorkingHours of(LocalTime opening, LocalTime closing, Set<DayOfWeek> days) {
+        if (!opening.isBefore(closing)) {
+            throw new IllegalArgumentException("Начало рабочего дня должно быть раньше его конца.");
+        }
+        if (days.isEmpty()) {
+            throw new IllegalArgumentException("Нужен хотя бы один рабочий день.");
+        }
+        return new WorkingHours(opening, closing, EnumSet.copyOf(days));
+    }
+
+    // Длительность рабочего дня; null, если время не ограничено
+    Duration workingDay() {
+        return opening == null ? null : Duration.between(opening, closing);
+    }
+
+    // Самый ранний рабочий момент не раньше time
+    LocalDateTime nextOpening(LocalDateTime time) {
+        if (opening == null) {
+            return time;
+        }
+        LocalDate date = time.toLocalDate();
+        if (days.contains(date.getDayOfWeek())) {
+            if (time.toLocalTime().isBefore(opening)) {
+                return date.atTime(opening);
+            }
+            if (time.toLocalTime().isBefore(closing)) {
+                return time;
+            }
+        }
+        // Хотя бы один день недели рабочий, поэтому цикл закончится не позже чем через неделю
+        do {
+            date = date.plusDays(1);
+        } while (!days.contains(date.getDayOfWeek()));
+        return date.atTime(opening);
+    }
+
+    // Конец рабочего дня, в который попадает рабочий момент time; null, если время не ограничено
+    LocalDateTime closingOf(LocalDateTime time) {
+        return closing == null ? null : time.toLocalDate().atTime(closing);
+    }
+
+    @Override
+    public String toString() {
+        return opening == null ? "always" : days + " " + opening + "-" + closing;
+    }
+}
@@ -1,20 +1,113 @@
 package tasktracker.tasks;
 
 import tasktracker.status.TaskStatus;
+import tasktracker.util.IntLinkedHashSet;
+import tasktracker.util.IntObjectHashMap;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
 
 public class Epic extends Task {
-    private final List<Integer> subtaskIds = new ArrayList<>();
+    // Множество без упаковки: удаление подзадачи за O(1), обход в порядке добавления подзадач
+    private IntLinkedHashSet subtaskIds = new IntLinkedHashSet();
+    // Агрегаты по подзадачам, которые обновляются при каждом изменении одной подзадачи
+    // за O(log k) вместо пересчёта по всем k подзадачам. Не сериализуются.
+    private transient Rollup rollup;
 
     public Epic(String title, String description, int id) {
         super(title, description, id, TaskStatus.NEW, Duration.ZERO, null);
     }
 
+    // Вклад одной подзадачи в агрегаты эпика на момент последнего изменения
+    private static final class Contribution {
+        final TaskStatus status;
+        final Duration duration;
+        final LocalDateTime start;
+        final LocalDateTime end;
+
+        Contribution(Subtask subtask) {
+            this.status = subtask.getStatus();
+            this.duration = subtask.getDuration();
+            this.start = subtask.getStartTime();
+            this.end = subtask.getEndTime();
+        }
+    }
+
+    private static final class Rollup {
+        final IntObjectHashMap<Contribution> contributions = new IntObjectHashMap<>();
+        // Последняя ячейка — подзадачи без статуса: как и раньше, они не NEW и не DONE
+        final int[] statusCounts = new int[TaskStatus.values().length + 1];
+        // Мультимножества времён начала и окончания: время -> число подзадач
+        final TreeMap<LocalDateTime, Integer> starts = new TreeMap<>();
+        final TreeMap<LocalDateTime, Integer> ends = new TreeMap<>();
+        Duration totalDuration = Duration.ZERO;
+
+        void add(int subtaskId, Contribution contribution) {
+            Contribution previous = contributions.put(subtaskId, contribution);
+            if (previous != null) {
+                subtract(previous);
+            }
+            statusCounts[bucket(contribution.status)]++;
+            if (contribution.duration != null) {
+                totalDuration = totalDuration.plus(contribution.duration);
+            }
+            if (contribution.start != null) {
+                starts.merge(contribution.start, 1, Integer::sum);
+            }
+            if (contribution.end != null) {
+                ends.merge(contribution.end, 1, Integer::sum);
+            }
+        }
+
+        void remove(int subtaskId) {
+            Contribution previous = contributions.remove(subtaskId);
+            if (previous != null) {
+                subtract(previous);
+            }
+        }
+
+        private void subtract(Contribution contribution) {
+            statusCounts[bucket(contribution.status)]--;
+            if (contribution.duration != null) {
+                totalDuration = totalDuration.minus(contribution.duration);
+            }
+            if (contribution.start != null) {
+                decrement(starts, contribution.start);
+            }
+            if (contribution.end != null) {
+                decrement(ends, contribution.end);
+            }
+        }
+
+        private int bucket(TaskStatus status) {
+            return status == null ? statusCounts.length - 1 : status.ordinal();
+        }
+
+        private static void decrement(TreeMap<LocalDateTime, Integer> counts, LocalDateTime key) {
+            counts.computeIfPresent(key, (time, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    // Объект, полученный через Gson, создаётся без вызова конструктора
+    private Rollup rollup() {
+        if (rollup == null) {
+            rollup = new Rollup();
+        }
+        return rollup;
+    }
+
+    private IntLinkedHashSet ids() {
+        if (subtaskIds == null) {
+            subtaskIds = new IntLinkedHashSet();
+        }
+        return subtaskIds;
+    }
+
     // Добавляем сеттер для id
     public void setId(int id) {
         // Поскольку Epic наследуется от Task, можно либо добавить protected сеттер в Task,
@@ -22,61 +115,91 @@ public class Epic extends Task {
         super.setId(id);
     }
 
+    // Копия списка id подзадач; для обхода без упаковки есть forEachSubtaskId
     public List<Integer> getSubtaskIds() {
-        return subtaskIds;
+        List<Integer> result = new ArrayList<>(ids().size());
+        ids().forEach(result::add);
+        return result;
+    }
+
+    public void forEachSubtaskId(IntConsumer action) {
+        ids().forEach(action);
+    }
+
+    public int getSubtaskCount() {
+        return ids().size();
     }
 
     public void addSubtask(int subtaskId) {
         if (this.getId() == subtaskId) {
             throw new IllegalArgumentException("Эпик не может быть подзадачей самого себя.");
         }
-        subtaskIds.add(subtaskId);
+        ids().add(subtaskId);
     }
 
-    public void removeSubtask(int subtaskId) {
-        subtaskIds.remove((Integer) subtaskId);
+    // Добавление подзадачи с учётом её статуса и времени в агрегатах эпика
+    public void addSubtask(Subtask subtask) {
+        addSubtask(subtask.getId());
+        rollup().add(subtask.getId(), new Contribution(subtask));
+        refresh();
     }
 
-    public void updateStatus(Map<Integer, Subtask> subtasks) {
-        if (subtaskIds.isEmpty()) {
-            setStatus(TaskStatus.NEW);
-            setDuration(Duration.ZERO);
-            setStartTime(null);
-            return;
-        }
+    // Учёт изменения уже добавленной подзадачи: старый вклад заменяется новым
+    public void updateSubtask(Subtask subtask) {
+        rollup().add(subtask.getId(), new Contribution(subtask));
+        refresh();
+    }
+
+    public void removeSubtask(int subtaskId) {
+        ids().remove(subtaskId);
+        rollup().remove(subtaskId);
+        refresh();
+    }
 
-        boolean allDone = true;
-        boolean allNew = true;
+    public void clearSubtasks() {
+        ids().clear();
+        rollup = new Rollup();
+        refresh();
+    }
 
-        Duration calculatedDuration = Duration.ZERO;
-        LocalDateTime calculatedStartTime = null;
+    // Замена набора подзадач подзадачами другого эпика (например, старой версии этого же эпика)
+    // с полным пересчётом агрегатов
+    public void copySubtasksFrom(Epic source, IntFunction<Subtask> subtasks) {
+        subtaskIds = new IntLinkedHashSet();
+        source.forEachSubtaskId(subtaskIds::add);
+        updateStatus(subtasks);
+    }
 
-        for (int subtaskId : subtaskIds) {
-            Subtask subtask = subtasks.get(subtaskId);
+    // Полный пересчёт агрегатов по таблице подзадач
+    public void updateStatus(IntFunction<Subtask> subtasks) {
+        Rollup rebuilt = new Rollup();
+        ids().forEach(subtaskId -> {
+            Subtask subtask = subtasks.apply(subtaskId);
             if (subtask != null) {
-                if (subtask.getStatus() != TaskStatus.DONE) {
-                    allDone = false;
-                }
-                if (subtask.getStatus() != TaskStatus.NEW) {
-                    allNew = false;
-                }
-                if (subtask.getDuration() != null) {
-                    calculatedDuration = calculatedDuration.plus(subtask.getDuration());
-                }
-                if (calculatedStartTime == null ||
-                        (subtask.getStartTime() != null && subtask.getStartTime().isBefore(calculatedStartTime))) {
-                    calculatedStartTime = subtask.getStartTime();
-                }
+                rebuilt.add(subtaskId, new Contribution(subtask));
             }
-        }
+        });
+        rollup = rebuilt;
+        refresh();
+    }
+
+    // Время окончания эпика — самое позднее окончание среди подзадач
+    @Override
+    public LocalDateTime getEndTime() {
+        Rollup current = rollup();
+        return current.ends.isEmpty() ? null : current.ends.lastKey();
+    }
 
-        setDuration(calculatedDuration);
-        setStartTime(calculatedStartTime);
+    private void refresh() {
+        Rollup current = rollup();
+        int total = current.contributions.size();
+        setDuration(current.totalDuration);
+        setStartTime(current.starts.isEmpty() ? null : current.starts.firstKey());
 
-        if (allDone) {
-            setStatus(TaskStatus.DONE);
-        } else if (allNew) {
+        if (total == 0 || current.statusCounts[TaskStatus.NEW.ordinal()] == total) {
             setStatus(TaskStatus.NEW);
+        } else if (current.statusCounts[TaskStatus.DONE.ordinal()] == total) {
+            setStatus(TaskStatus.DONE);
         } else {
             setStatus(TaskStatus.IN_PROGRESS);
         }
@@ -0,0 +1,145 @@
+package tasktracker.util;
+
+import java.util.function.IntConsumer;
+
+// Множество int без упаковки в Integer: открытая адресация с линейным пробированием.
+// Свободная ячейка обозначается нулём, наличие самого нуля хранится отдельным флагом.
+public class IntHashSet {
+    private static final int MIN_CAPACITY = 8;
+    private static final int FREE = 0;
+
+    private int[] keys = new int[MIN_CAPACITY];
+    private boolean hasFree;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int key) {
+        if (key == FREE) {
+            return hasFree;
+        }
+        return keys[indexOf(key)] == key;
+    }
+
+    public boolean add(int key) {
+        if (key == FREE) {
+            if (hasFree) {
+                return false;
+            }
+            hasFree = true;
+            size++;
+            return true;
+        }
+        int index = indexOf(key);
+        if (keys[index] == key) {
+            return false;
+        }
+        keys[index] = key;
+        size++;
+        if (size * 2 > keys.length) {
+            resize(keys.length << 1);
+        }
+        return true;
+    }
+
+    public boolean remove(int key) {
+        if (key == FREE) {
+            if (!hasFree) {
+                return false;
+            }
+            hasFree = false;
+            size--;
+            return true;
+        }
+        int index = indexOf(key);
+        if (keys[index] != key) {
+            return false;
+        }
+        keys[index] = FREE;
+        size--;
+        // Сдвигаем назад элементы цепочки, которые могли пропустить освободившуюся ячейку
+        int mask = keys.length - 1;
+        int free = index;
+        int next = (index + 1) & mask;
+        while (keys[next] != FREE) {
+            int home = slot(keys[next], mask);
+            boolean stays = free <= next ? free < home && home <= next : free < home || home <= next;
+            if (!stays) {
+                keys[free] = keys[next];
+                keys[next] = FREE;
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        return true;
+    }
+
+    public void clear() {
+        keys = new int[MIN_CAPACITY];
+        hasFree = false;
+        size = 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        if (hasFree) {
+            action.accept(FREE);
+        }
+        for (int key : keys) {
+            if (key != FREE) {
+                action.accept(key);
+            }
+        }
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size];
+        int position = 0;
+        if (hasFree) {
+            result[position++] = FREE;
+        }
+        for (int key : keys) {
+            if (key != FREE) {
+                result[position++] = key;
+            }
+        }
+        return result;
+    }
+
+    // Ячейка с ключом key либо первая свободная ячейка его цепочки
+    private int indexOf(int key) {
+        int mask = keys.length - 1;
+        int index = slot(key, mask);
+        while (keys[index] != FREE && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    // Ключ перемешивается умножением (фибоначчиево хеширование): последовательные id иначе занимают
+    // одну сплошную цепочку, и удаление со сдвигом просматривает её до конца — O(n) на большой таблице
+    private static int slot(int key, int mask) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        keys = new int[capacity];
+        int mask = capacity - 1;
+        for (int key : oldKeys) {
+            if (key != FREE) {
+                int index = slot(key, mask);
+                while (keys[index] != FREE) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package tasktracker.util;
+
+// Хеш-таблица int -> неотрицательный int без упаковки: открытая адресация с линейным пробированием,
+// как в IntObjectHashMap. Значение хранится со сдвигом на единицу, поэтому ноль в массиве значений
+// означает пустую ячейку и новый массив не нужно заполнять.
+public class IntIntHashMap {
+    public static final int MISSING = -1;
+    private static final int MIN_CAPACITY = 8;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    public IntIntHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntIntHashMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        // Заполненность не больше половины
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        keys = new int[capacity];
+        values = new int[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(int key) {
+        return values[indexOf(key)] != 0;
+    }
+
+    // Значение по ключу или MISSING
+    public int get(int key) {
+        return values[indexOf(key)] - 1;
+    }
+
+    // Возвращает предыдущее значение или MISSING
+    public int put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Значение не может быть отрицательным");
+        }
+        int index = indexOf(key);
+        int previous = values[index] - 1;
+        keys[index] = key;
+        values[index] = value + 1;
+        if (previous == MISSING) {
+            size++;
+            if (size * 2 > keys.length) {
+                resize(keys.length << 1);
+            }
+        }
+        return previous;
+    }
+
+    public int remove(int key) {
+        int index = indexOf(key);
+        int previous = values[index] - 1;
+        if (previous == MISSING) {
+            return MISSING;
+        }
+        values[index] = 0;
+        size--;
+        // Сдвигаем назад элементы цепочки, которые могли пропустить освободившуюся ячейку
+        int mask = keys.length - 1;
+        int free = index;
+        int next = (index + 1) & mask;
+        while (values[next] != 0) {
+            int home = slot(keys[next], mask);
+            // Элемент остаётся на месте, если его исходная ячейка лежит циклически в (free, next]
+            boolean stays = free <= next ? free < home && home <= next : free < home || home <= next;
+            if (!stays) {
+                keys[free] = keys[next];
+                values[free] = values[next];
+                values[next] = 0;
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        return previous;
+    }
+
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        keys = new int[MIN_CAPACITY];
+        values = new int[MIN_CAPACITY];
+        size = 0;
+    }
+
+    // Ячейка с ключом key либо первая пустая ячейка его цепочки
+    private int indexOf(int key) {
+        int mask = keys.length - 1;
+        int index = slot(key, mask);
+        while (values[index] != 0 && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    // Ключ перемешивается умножением (фибоначчиево хеширование): последовательные id иначе занимают
+    // одну сплошную цепочку, и удаление со сдвигом просматривает её до конца — O(n) на большой таблице
+    private static int slot(int key, int mask) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != 0) {
+                int index = slot(oldKeys[i], mask);
+                while (values[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package tasktracker.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Множество int без упаковки, которое обходится в порядке добавления. Элементы лежат в ячейках
+// массивов и связаны индексами в двусвязный список; позиция элемента ищется по IntIntHashMap,
+// поэтому добавление и удаление — O(1). Освобождённые ячейки используются повторно.
+public class IntLinkedHashSet {
+    private static final int MIN_CAPACITY = 8;
+    private static final int NONE = -1;
+
+    // Элемент -> номер его ячейки
+    private final IntIntHashMap slots = new IntIntHashMap();
+    private int[] keys = new int[MIN_CAPACITY];
+    private int[] prev = new int[MIN_CAPACITY];
+    private int[] next = new int[MIN_CAPACITY];
+    private int head = NONE;
+    private int tail = NONE;
+    // Начало списка свободных ячеек (связаны через next) и число когда-либо занятых ячеек
+    private int free = NONE;
+    private int used;
+
+    public int size() {
+        return slots.size();
+    }
+
+    public boolean isEmpty() {
+        return slots.size() == 0;
+    }
+
+    public boolean contains(int key) {
+        return slots.containsKey(key);
+    }
+
+    public boolean add(int key) {
+        if (slots.containsKey(key)) {
+            return false;
+        }
+        int slot;
+        if (free != NONE) {
+            slot = free;
+            free = next[slot];
+        } else {
+            if (used == keys.length) {
+                grow();
+            }
+            slot = used++;
+        }
+        keys[slot] = key;
+        prev[slot] = tail;
+        next[slot] = NONE;
+        if (tail == NONE) {
+            head = slot;
+        } else {
+            next[tail] = slot;
+        }
+        tail = slot;
+        slots.put(key, slot);
+        return true;
+    }
+
+    public boolean remove(int key) {
+        int slot = slots.remove(key);
+        if (slot == IntIntHashMap.MISSING) {
+            return false;
+        }
+        if (prev[slot] == NONE) {
+            head = next[slot];
+        } else {
+            next[prev[slot]] = next[slot];
+        }
+        if (next[slot] == NONE) {
+            tail = prev[slot];
+        } else {
+            prev[next[slot]] = prev[slot];
+        }
+        next[slot] = free;
+        free = slot;
+        return true;
+    }
+
+    public void clear() {
+        slots.clear();
+        keys = new int[MIN_CAPACITY];
+        prev = new int[MIN_CAPACITY];
+        next = new int[MIN_CAPACITY];
+        head = NONE;
+        tail = NONE;
+        free = NONE;
+        used = 0;
+    }
+
+    // Обход в порядке добавления
+    public void forEach(IntConsumer action) {
+        for (int slot = head; slot != NONE; slot = next[slot]) {
+            action.accept(keys[slot]);
+        }
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size()];
+        int position = 0;
+        for (int slot = head; slot != NONE; slot = next[slot]) {
+            result[position++] = keys[slot];
+        }
+        return result;
+    }
+
+    private void grow() {
+        int capacity = keys.length << 1;
+        keys = Arrays.copyOf(keys, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        next = Arrays.copyOf(next, capacity);
+    }
+}
@@ -0,0 +1,225 @@
+package tasktracker.util;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+// Хеш-таблица с ключами int без упаковки в Integer: открытая адресация с линейным пробированием
+// по схеме Robin Hood — при вставке элемент, ушедший от своей ячейки дальше, вытесняет более близкий.
+// Ключи и значения лежат в двух параллельных массивах, пустая ячейка — значение null,
+// поэтому null в качестве значения не допускается. Удаление сдвигает следующие ячейки назад,
+// без "надгробий", и останавливается на первом элементе, стоящем в своей ячейке.
+// Последовательные id занимают соседние ячейки и образуют одну длинную цепочку; без Robin Hood
+// удаление просматривало бы её до конца, то есть O(n) на большой таблице.
+public class IntObjectHashMap<V> {
+    private static final int MIN_CAPACITY = 8;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int modCount;
+
+    public IntObjectHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntObjectHashMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        // Заполненность не больше половины
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        keys = new int[capacity];
+        values = new Object[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int index = indexOf(key);
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+    // Возвращает предыдущее значение или null
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Значение не может быть null");
+        }
+        int index = indexOf(key);
+        if (index >= 0) {
+            V previous = (V) values[index];
+            values[index] = value;
+            return previous;
+        }
+        insert(key, value);
+        size++;
+        modCount++;
+        if (size * 2 > keys.length) {
+            resize(keys.length << 1);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        V previous = (V) values[index];
+        size--;
+        modCount++;
+        // Сдвигаем назад следующие элементы цепочки, пока не встретится пустая ячейка
+        // или элемент в своей ячейке: по инварианту Robin Hood дальше сдвигать нечего
+        int mask = keys.length - 1;
+        int free = index;
+        int next = (index + 1) & mask;
+        while (values[next] != null && distance(next, mask) > 0) {
+            keys[free] = keys[next];
+            values[free] = values[next];
+            free = next;
+            next = (next + 1) & mask;
+        }
+        values[free] = null;
+        return previous;
+    }
+
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        keys = new int[MIN_CAPACITY];
+        values = new Object[MIN_CAPACITY];
+        size = 0;
+        modCount++;
+    }
+
+    public void forEachKey(IntConsumer action) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                action.accept(keys[i]);
+            }
+        }
+    }
+
+    // Представление значений без копирования; порядок обхода не определён
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private final class ValueIterator implements Iterator<V> {
+        private final int expectedModCount = modCount;
+        private int index = advance(0);
+
+        private int advance(int from) {
+            while (from < values.length && values[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < values.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (index >= values.length) {
+                throw new NoSuchElementException();
+            }
+            V value = (V) values[index];
+            index = advance(index + 1);
+            return value;
+        }
+    }
+
+    // Ячейка с ключом key или -1. Поиск заканчивается, как только элементы цепочки оказываются
+    // ближе к своим ячейкам, чем key был бы к своей: при вставке key вытеснил бы их
+    private int indexOf(int key) {
+        int mask = keys.length - 1;
+        int index = slot(key, mask);
+        for (int probed = 0; values[index] != null && distance(index, mask) >= probed; probed++) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Вставка ключа, которого нет в таблице
+    private void insert(int key, Object value) {
+        int mask = keys.length - 1;
+        int index = slot(key, mask);
+        int probed = 0;
+        while (values[index] != null) {
+            int existing = distance(index, mask);
+            if (existing < probed) {
+                // Занимаем ячейку, а вытесненный элемент ищет место дальше
+                int displacedKey = keys[index];
+                Object displacedValue = values[index];
+                keys[index] = key;
+                values[index] = value;
+                key = displacedKey;
+                value = displacedValue;
+                probed = existing;
+            }
+            index = (index + 1) & mask;
+            probed++;
+        }
+        keys[index] = key;
+        values[index] = value;
+    }
+
+    // На сколько ячеек элемент в index отстоит от своей исходной ячейки
+    private int distance(int index, int mask) {
+        return (index - slot(keys[index], mask)) & mask;
+    }
+
+    // Для последовательных id соседние ключи попадают в соседние ячейки без коллизий
+    private static int slot(int key, int mask) {
+        return (key ^ (key >>> 16)) & mask;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
@@ -35,4 +35,26 @@ public class HttpTaskServerHistoryTest extends BaseHttpTest {
         assertEquals(1, history.length, "Некорректное количество задач в истории");
         assertEquals(task1, history[0], "Задача в истории не совпадает с ожидаемой");
     }
+
+    @Test
+    public void testHistoryIsSeparatedByClientId() throws IOException, InterruptedException {
+        Task task1 = new Task("Task 1", "Description 1", 0, TaskStatus.NEW);
+        Task task2 = new Task("Task 2", "Description 2", 0, TaskStatus.NEW);
+        manager.createTask(task1);
+        manager.createTask(task2);
+
+        HttpClient client = HttpClient.newHttpClient();
+        client.send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks/" + task1.getId()))
+                .header("X-Client-Id", "alice").GET().build(), HttpResponse.BodyHandlers.ofString());
+        client.send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks/" + task2.getId()))
+                .header("X-Client-Id", "bob").GET().build(), HttpResponse.BodyHandlers.ofString());
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/history")).header("X-Client-Id", "alice").GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        Task[] history = gson.fromJson(response.body(), Task[].class);
+        assertEquals(1, history.length, "Клиент должен видеть только свои просмотры");
+        assertEquals(task1, history[0]);
+    }
 }
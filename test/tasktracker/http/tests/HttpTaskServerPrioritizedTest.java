@@ -31,4 +31,33 @@ public class HttpTaskServerPrioritizedTest extends BaseHttpTest {
 
         assertEquals(200, response.statusCode(), "Некорректный статус ответа");
     }
+
+    @Test
+    public void testGetPrioritizedTasksInWindow() throws IOException, InterruptedException {
+        LocalDateTime day = LocalDateTime.of(2024, 1, 2, 0, 0);
+        manager.createTask(new Task("Morning", "Description", 0, TaskStatus.NEW,
+                Duration.ofMinutes(60), day.plusHours(9)));
+        manager.createTask(new Task("Noon", "Description", 0, TaskStatus.NEW,
+                Duration.ofMinutes(60), day.plusHours(12)));
+        manager.createTask(new Task("Night", "Description", 0, TaskStatus.NEW,
+                Duration.ofMinutes(60), day.plusHours(22)));
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/prioritized?from=2024-01-02T08:00&to=2024-01-02T18:00&limit=5");
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder().uri(url).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode(), "Некорректный статус ответа");
+        Task[] tasks = gson.fromJson(response.body(), Task[].class);
+        assertEquals(2, tasks.length, "В окно должны попасть только дневные задачи");
+        assertEquals("Morning", tasks[0].getTitle());
+
+        url = URI.create("http://localhost:8080/prioritized?from=2024-01-02T08:00&limit=1");
+        response = client.send(HttpRequest.newBuilder().uri(url).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(1, gson.fromJson(response.body(), Task[].class).length, "Лимит должен ограничивать ответ");
+
+        url = URI.create("http://localhost:8080/prioritized?from=yesterday");
+        response = client.send(HttpRequest.newBuilder().uri(url).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode(), "Некорректное время должно давать 400");
+    }
 }
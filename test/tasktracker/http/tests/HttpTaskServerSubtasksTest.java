@@ -1,5 +1,6 @@
 package tasktracker.http.tests;
 
+import com.google.gson.JsonObject;
 import org.junit.jupiter.api.Test;
 import tasktracker.tasks.Epic;
 import tasktracker.tasks.Subtask;
@@ -12,6 +13,7 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -35,4 +37,23 @@ public class HttpTaskServerSubtasksTest extends BaseHttpTest {
         assertEquals(201, response.statusCode(), "Некорректный статус ответа при добавлении подзадачи");
         assertEquals(1, manager.getAllSubtasks().size(), "Подзадача не добавлена в менеджер");
     }
+
+    @Test
+    public void testAddSubtaskWithoutStatus() throws IOException, InterruptedException {
+        Epic epic = new Epic("Test Epic", "Epic Description", 0);
+        manager.createEpic(epic);
+        JsonObject json = gson.toJsonTree(new Subtask("Test Subtask", "Subtask Description", 0, TaskStatus.NEW,
+                null, null, epic.getId())).getAsJsonObject();
+        json.remove("status");
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/subtasks"))
+                .POST(HttpRequest.BodyPublishers.ofString(json.toString())).build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(201, response.statusCode(), "Подзадача без статуса должна приниматься");
+        assertEquals(1, manager.getAllSubtasks().size());
+        assertEquals(List.of(manager.getAllSubtasks().get(0).getId()), manager.getEpicById(epic.getId()).getSubtaskIds(),
+                "Подзадача должна быть учтена в эпике");
+    }
 }
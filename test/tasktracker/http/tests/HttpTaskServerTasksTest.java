@@ -10,14 +10,18 @@ import tasktracker.http.HttpTaskServer;
 import tasktracker.status.TaskStatus;
 import tasktracker.tasks.Task;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.AbstractList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -75,6 +79,23 @@ public class HttpTaskServerTasksTest {
         assertEquals("Test 2", tasksFromManager.getFirst().getTitle(), "Некорректное имя задачи");
     }
 
+    @Test
+    public void testUpdateTaskDoesNotRecordView() throws IOException, InterruptedException {
+        Task task = new Task("Task", "Description", 0, TaskStatus.NEW);
+        manager.createTask(task);
+        Task updated = new Task("Task", "Updated", task.getId(), TaskStatus.IN_PROGRESS);
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(updated)))
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode(), "Ожидался код ответа 200 при обновлении задачи");
+        assertEquals(TaskStatus.IN_PROGRESS, manager.getAllTasks().getFirst().getStatus());
+        assertTrue(manager.getHistory().isEmpty(), "Проверка наличия задачи не должна попадать в историю");
+    }
+
     @Test
     public void testGetNonExistingTask() throws IOException, InterruptedException {
         // Пытаемся получить несуществующую задачу по id = 999
@@ -178,4 +199,119 @@ public class HttpTaskServerTasksTest {
         // Ожидаем 500, так как JSON некорректен и вызовет ошибку парсинга
         assertEquals(500, response.statusCode(), "Ожидался код 500 при отправке некорректного JSON");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetAllTasksStreamsChunkedArray() throws IOException, InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int i = 0; i < 500; i++) {
+            manager.createTask(new Task("Task " + i, "Description", 0, TaskStatus.NEW,
+                    Duration.ofMinutes(10), start.plusMinutes(15L * i)));
+        }
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("chunked", response.headers().firstValue("Transfer-Encoding").orElse(null),
+                "Список должен передаваться частями без заранее известной длины");
+        Task[] tasks = gson.fromJson(response.body(), Task[].class);
+        assertEquals(manager.getAllTasks(), List.of(tasks), "Потоковая запись должна давать тот же JSON");
+    }
+
+    @Test
+    public void testRejectOversizedBody() throws IOException, InterruptedException {
+        taskServer.setMaxBodySize(64);
+        Task task = new Task("Task", "x".repeat(200), 0, TaskStatus.NEW);
+        HttpClient client = HttpClient.newHttpClient();
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(task)))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(413, response.statusCode(), "Тело больше лимита должно отклоняться с кодом 413");
+
+        // Тело без Content-Length обрывается при чтении
+        HttpResponse<String> chunked = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .POST(HttpRequest.BodyPublishers.ofInputStream(
+                        () -> new ByteArrayInputStream(gson.toJson(task).getBytes(StandardCharsets.UTF_8))))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(413, chunked.statusCode(), "Тело без длины тоже должно ограничиваться");
+        assertTrue(manager.getAllTasks().isEmpty(), "Задача из отклонённого запроса не должна создаваться");
+    }
+
+    @Test
+    public void testRejectMismatchedType() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        String epicJson = "{\"type\":\"EPIC\",\"title\":\"Epic\",\"description\":\"Description\",\"id\":0}";
+        String subtaskJson = "{\"type\":\"SUBTASK\",\"title\":\"Subtask\",\"description\":\"Description\","
+                + "\"id\":0,\"epicId\":42}";
+
+        for (String json : List.of(epicJson, subtaskJson)) {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/tasks"))
+                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, response.statusCode(), "Другой подтип в /tasks должен отклоняться: " + json);
+        }
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/epics"))
+                .POST(HttpRequest.BodyPublishers.ofString(epicJson.replace("EPIC", "TASK")))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode(), "Задача в /epics должна отклоняться");
+
+        assertTrue(manager.getAllTasks().isEmpty(), "Отклонённые объекты не должны попадать в таблицу задач");
+        assertTrue(manager.getAllEpics().isEmpty());
+    }
+
+    @Test
+    public void testFailureWhileListingIsNotSentAsOk() throws IOException, InterruptedException {
+        taskServer.stop();
+        // Менеджер, у которого обход списка задач обрывается на элементе failAt
+        AtomicInteger failAt = new AtomicInteger();
+        TaskManager failing = new InMemoryTaskManager() {
+            @Override
+            public List<Task> getAllTasks() {
+                List<Task> tasks = super.getAllTasks();
+                return new AbstractList<>() {
+                    @Override
+                    public Task get(int index) {
+                        if (index == failAt.get()) {
+                            throw new IllegalStateException("Сбой при обходе");
+                        }
+                        return tasks.get(index);
+                    }
+
+                    @Override
+                    public int size() {
+                        return tasks.size();
+                    }
+                };
+            }
+        };
+        for (int i = 0; i < 2_000; i++) {
+            failing.createTask(new Task("Задача " + i, "Описание", 0, TaskStatus.NEW));
+        }
+        HttpTaskServer failingServer = new HttpTaskServer(failing);
+        failingServer.start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            HttpRequest request = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks")).GET().build();
+
+            // До отправки заголовков сбой становится ответом с кодом ошибки
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            assertEquals(500, response.statusCode(), "Сбой на первом элементе должен давать код 500.");
+            assertTrue(response.body().contains("Сбой при обходе"));
+
+            // После начала передачи соединение обрывается, и завершённого ответа 200 клиент не получает
+            failAt.set(1_500);
+            assertThrows(IOException.class, () -> client.send(request, HttpResponse.BodyHandlers.ofString()),
+                    "Сбой посреди списка не должен давать обрезанный ответ 200.");
+        } finally {
+            failingServer.stop();
+        }
+    }
+}
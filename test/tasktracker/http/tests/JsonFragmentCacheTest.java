@@ -0,0 +1,125 @@
+package tasktracker.http.tests;
+
+import org.junit.jupiter.api.Test;
+import tasktracker.http.JsonFragmentCache;
+import tasktracker.manager.InMemoryTaskManager;
+import tasktracker.manager.Managers;
+import tasktracker.manager.TaskManager;
+import tasktracker.status.TaskStatus;
+import tasktracker.tasks.Epic;
+import tasktracker.tasks.Subtask;
+import tasktracker.tasks.Task;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonFragmentCacheTest {
+    private final TaskManager manager = new InMemoryTaskManager();
+    private final JsonFragmentCache cache = new JsonFragmentCache(Managers.getGson());
+
+    JsonFragmentCacheTest() {
+        manager.addChangeListener(cache);
+    }
+
+    private String json(Task task) {
+        return new String(cache.get(task), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void shouldReuseSerializedTask() {
+        Task task = new Task("Task", "Description", 0, TaskStatus.NEW);
+        manager.createTask(task);
+
+        byte[] first = cache.get(task);
+        byte[] second = cache.get(task);
+
+        assertSame(first, second, "Неизменённая задача не должна сериализоваться повторно.");
+        assertEquals(1, cache.hits());
+        assertEquals(Managers.getGson().toJson(task), json(task));
+    }
+
+    @Test
+    void shouldDropEntryOnUpdateAndDelete() {
+        Task task = new Task("Task", "Description", 0, TaskStatus.NEW);
+        manager.createTask(task);
+        cache.get(task);
+
+        // Изменение того же объекта через менеджер
+        task.setStatus(TaskStatus.DONE);
+        manager.updateTask(task);
+        assertTrue(json(task).contains("\"DONE\""), "После обновления должен отдаваться новый JSON.");
+
+        manager.deleteTaskById(task.getId());
+        assertEquals(0, cache.size(), "Удалённая задача не должна оставаться в кеше.");
+    }
+
+    @Test
+    void shouldServeCurrentVersionForObjectLeftInHistory() {
+        Task task = new Task("Old", "Description", 0, TaskStatus.NEW);
+        manager.createTask(task);
+        manager.getTaskById(task.getId());
+        Task updated = new Task("New", "Description", task.getId(), TaskStatus.NEW);
+        manager.updateTask(updated);
+
+        // История хранит прежний объект; первым после обновления его запрашивает список истории
+        Task fromHistory = manager.getHistory().get(0);
+        assertSame(task, fromHistory);
+        byte[] historyJson = cache.get(fromHistory);
+
+        assertTrue(json(updated).contains("\"New\""), "Список задач не должен получить JSON прежней версии.");
+        assertSame(historyJson, cache.get(updated), "Запись должна находиться по id и версии, а не по объекту.");
+        cache.get(fromHistory);
+        assertEquals(3, cache.hits(), "Прежний объект из истории не должен вызывать повторные промахи.");
+    }
+
+    @Test
+    void shouldDropEpicWhenSubtaskChanges() {
+        Epic epic = new Epic("Epic", "Description", 0);
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Subtask", "Description", 0, TaskStatus.NEW, null, null, epic.getId());
+        manager.createSubtask(subtask);
+        assertTrue(json(epic).contains("\"NEW\""));
+
+        manager.updateSubtask(new Subtask("Subtask", "Description", subtask.getId(), TaskStatus.DONE, null, null,
+                epic.getId()));
+
+        assertTrue(json(epic).contains("\"DONE\""), "Пересчитанный эпик должен сериализоваться заново.");
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedBeyondBudget() {
+        Task first = new Task("Task 1", "Description", 0, TaskStatus.NEW);
+        Task second = new Task("Task 2", "Description", 0, TaskStatus.NEW);
+        Task third = new Task("Task 3", "Description", 0, TaskStatus.NEW);
+        manager.createTask(first);
+        manager.createTask(second);
+        manager.createTask(third);
+        // Записи одного размера: помещаются две, но не три
+        cache.get(first);
+        long budget = cache.sizeInBytes() * 5 / 2;
+        JsonFragmentCache small = new JsonFragmentCache(Managers.getGson(), budget);
+
+        small.get(first);
+        small.get(second);
+        small.get(first);
+        small.get(third);
+
+        assertEquals(2, small.size());
+        assertTrue(small.sizeInBytes() <= budget, "Объём кеша не должен превышать заданный.");
+        small.get(first);
+        assertEquals(2, small.hits(), "Недавно использованная задача должна остаться в кеше.");
+    }
+
+    @Test
+    void shouldStopTrackingChangesAfterUnsubscribe() {
+        Task task = new Task("Task", "Description", 0, TaskStatus.NEW);
+        manager.createTask(task);
+        cache.get(task);
+
+        manager.removeChangeListener(cache);
+        manager.deleteTaskById(task.getId());
+
+        assertEquals(1, cache.size(), "Отписанный кеш не должен получать изменения менеджера.");
+    }
+}
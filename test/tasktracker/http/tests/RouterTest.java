@@ -0,0 +1,53 @@
+package tasktracker.http.tests;
+
+import org.junit.jupiter.api.Test;
+import tasktracker.http.Router;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouterTest {
+    private final Router.Route route = (exchange, params) -> { };
+    private final Router.Route subtasks = (exchange, params) -> { };
+    private final Router.Route latest = (exchange, params) -> { };
+
+    private final Router router = new Router()
+            .get("/epics", route)
+            .get("/epics/{id:int}", route)
+            .delete("/epics/{id:int}", route)
+            .get("/epics/{id:int}/subtasks", subtasks)
+            .get("/epics/latest", latest);
+
+    @Test
+    void shouldParseIntParameters() {
+        Router.Match match = router.find("GET", "/epics/42/subtasks");
+
+        assertEquals(Router.Status.FOUND, match.getStatus());
+        assertSame(subtasks, match.getRoute());
+        assertEquals(42, match.getParams().getInt("id"), "Id должен разбираться при поиске маршрута.");
+    }
+
+    @Test
+    void shouldPreferLiteralOverParameter() {
+        assertSame(latest, router.find("GET", "/epics/latest").getRoute(),
+                "Литерал должен иметь приоритет над параметром.");
+    }
+
+    @Test
+    void shouldRejectPathsThatDoNotMatch() {
+        assertEquals(Router.Status.NOT_FOUND, router.find("GET", "/epics/abc").getStatus());
+        assertEquals(Router.Status.NOT_FOUND, router.find("GET", "/epics/99999999999").getStatus(),
+                "Число вне диапазона int не должно подходить под параметр.");
+        assertEquals(Router.Status.NOT_FOUND, router.find("GET", "/epics/").getStatus());
+        assertEquals(Router.Status.NOT_FOUND, router.find("GET", "/epicsX").getStatus());
+        assertEquals(Router.Status.NOT_FOUND, router.find("GET", "/").getStatus());
+        assertEquals(Router.Status.METHOD_NOT_ALLOWED, router.find("POST", "/epics/1").getStatus());
+    }
+
+    @Test
+    void shouldRejectConflictingTemplates() {
+        assertThrows(IllegalArgumentException.class, () -> router.get("/epics/{epicId:int}/name", route),
+                "На одном уровне может быть только один параметр.");
+        assertThrows(IllegalArgumentException.class, () -> router.get("/epics", route),
+                "Маршрут нельзя задать дважды.");
+    }
+}
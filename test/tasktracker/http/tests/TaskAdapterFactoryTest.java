@@ -0,0 +1,65 @@
+package tasktracker.http.tests;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.Test;
+import tasktracker.manager.Managers;
+import tasktracker.status.TaskStatus;
+import tasktracker.tasks.Epic;
+import tasktracker.tasks.Subtask;
+import tasktracker.tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskAdapterFactoryTest {
+    private final Gson gson = Managers.getGson();
+
+    @Test
+    void shouldKeepSubtypeByDiscriminator() {
+        Subtask subtask = new Subtask("Subtask", "Description", 3, TaskStatus.DONE, Duration.ofMinutes(20),
+                LocalDateTime.of(2024, 1, 1, 9, 0), 2);
+
+        Task read = gson.fromJson(gson.toJson(subtask), Task.class);
+
+        assertInstanceOf(Subtask.class, read, "Подзадача, прочитанная как Task, должна остаться Subtask.");
+        assertEquals(subtask, read);
+        assertEquals(2, ((Subtask) read).getEpicId());
+    }
+
+    @Test
+    void shouldRoundTripTimeWithNanoseconds() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime beforeEpoch = LocalDateTime.of(1969, 12, 31, 23, 59, 59, 500_000_000);
+        for (LocalDateTime time : List.of(now, beforeEpoch, LocalDateTime.of(2024, 1, 1, 9, 0))) {
+            Task task = new Task("Task", "Description", 1, TaskStatus.NEW, Duration.ofMinutes(5), time);
+            assertEquals(time, gson.fromJson(gson.toJson(task), Task.class).getStartTime(),
+                    "Время должно восстанавливаться без потери точности: " + time);
+        }
+        assertTrue(gson.toJson(new Task("T", "D", 1, TaskStatus.NEW, null, LocalDateTime.of(2024, 1, 1, 9, 0)))
+                .contains("\"startTime\":1704099600"), "Время без долей секунды пишется целым числом.");
+    }
+
+    @Test
+    void shouldReadJsonWithoutDiscriminator() {
+        String json = "{\"title\":\"Epic\",\"description\":\"Description\",\"id\":5,\"subtaskIds\":[6,7],"
+                + "\"startTime\":\"2024-01-01T09:00:00\"}";
+
+        Epic epic = gson.fromJson(json, Epic.class);
+
+        assertEquals(5, epic.getId());
+        assertEquals(List.of(6, 7), epic.getSubtaskIds().stream().sorted().toList());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 9, 0), epic.getStartTime(), "Прежний формат времени принимается.");
+    }
+
+    @Test
+    void shouldRejectMismatchedType() {
+        String json = gson.toJson(new Task("Task", "Description", 1, TaskStatus.NEW));
+
+        assertThrows(JsonParseException.class, () -> gson.fromJson(json, Subtask.class),
+                "Задача не может быть прочитана как подзадача.");
+    }
+}
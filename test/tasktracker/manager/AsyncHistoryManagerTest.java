@@ -0,0 +1,97 @@
+package tasktracker.manager;
+
+import org.junit.jupiter.api.Test;
+import tasktracker.status.TaskStatus;
+import tasktracker.tasks.Task;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncHistoryManagerTest {
+
+    @Test
+    void shouldApplyViewsFromManyThreadsInBackground() throws Exception {
+        try (AsyncHistoryManager history = new AsyncHistoryManager(new InMemoryHistoryManager(10_000),
+                1 << 16, Duration.ofMillis(5))) {
+            int threads = 8;
+            int viewsPerThread = 1_000;
+            List<Thread> producers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t * viewsPerThread;
+                producers.add(new Thread(() -> {
+                    for (int i = 0; i < viewsPerThread; i++) {
+                        history.add(new Task("Task", "Description", offset + i + 1, TaskStatus.NEW));
+                    }
+                }));
+            }
+            producers.forEach(Thread::start);
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            history.flush();
+
+            Set<Integer> ids = new HashSet<>();
+            history.getHistory().forEach(task -> ids.add(task.getId()));
+            assertEquals(threads * viewsPerThread, ids.size(), "Все просмотры должны попасть в историю.");
+            assertEquals(0, history.pendingEvents());
+            assertEquals(0, history.droppedViews());
+        }
+    }
+
+    @Test
+    void shouldKeepRemovalOrderedAfterView() {
+        try (AsyncHistoryManager history = new AsyncHistoryManager(new InMemoryHistoryManager(),
+                4, Duration.ofMillis(1))) {
+            for (int i = 0; i < 100; i++) {
+                history.add(new Task("Task", "Description", 1, TaskStatus.NEW));
+                history.remove(1);
+            }
+            history.flush();
+            assertTrue(history.getHistory().isEmpty(), "Удаление должно применяться после предшествующего просмотра.");
+        }
+    }
+
+    @Test
+    void shouldApplyEventsPublishedDuringClose() throws Exception {
+        AsyncHistoryManager history = new AsyncHistoryManager(new InMemoryHistoryManager(10_000),
+                1 << 4, Duration.ofMillis(1));
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t * 1_000;
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    history.remove(offset + i + 1);
+                    history.add(new Task("Task", "Description", offset + i + 1, TaskStatus.NEW));
+                    history.remove(offset + i + 1);
+                }
+            }));
+        }
+        producers.forEach(Thread::start);
+        history.close();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        history.flush();
+
+        assertTrue(history.getHistory().isEmpty(), "Удаления, опубликованные во время close, должны применяться.");
+        assertEquals(0, history.pendingEvents());
+    }
+
+    @Test
+    void shouldBlockRemovalUntilConsumerFreesSlot() throws Exception {
+        try (AsyncHistoryManager history = new AsyncHistoryManager(new InMemoryHistoryManager(),
+                2, Duration.ofMillis(1))) {
+            for (int i = 1; i <= 1_000; i++) {
+                history.add(new Task("Task", "Description", i, TaskStatus.NEW));
+                history.remove(i);
+            }
+            history.flush();
+            assertTrue(history.getHistory().isEmpty(), "Все удаления должны быть применены.");
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package tasktracker.manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasktracker.status.TaskStatus;
+import tasktracker.tasks.Epic;
+import tasktracker.tasks.Subtask;
+import tasktracker.tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+    private TaskManager taskManager;
+
+    @BeforeEach
+    void setUp() {
+        taskManager = Managers.getConcurrent();
+    }
+
+    @Test
+    void shouldCreateTasksFromManyThreadsWithUniqueIds() throws Exception {
+        int threads = 8;
+        int tasksPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < tasksPerThread; i++) {
+                    long slot = (long) thread * tasksPerThread + i;
+                    taskManager.createTask(new Task("Task " + slot, "Description", 0, TaskStatus.NEW,
+                            Duration.ofMinutes(10), START.plusMinutes(slot * 10)));
+                    taskManager.getAllTasks();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        List<Task> tasks = taskManager.getAllTasks();
+        Set<Integer> ids = new HashSet<>();
+        tasks.forEach(task -> ids.add(task.getId()));
+        assertEquals(threads * tasksPerThread, tasks.size(), "Все задачи должны быть добавлены.");
+        assertEquals(tasks.size(), ids.size(), "Id задач не должны повторяться.");
+        assertEquals(tasks.size(), taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void shouldKeepInvariantsUnderContention() throws Exception {
+        int writers = 6;
+        int readers = 6;
+        int operationsPerWriter = 2_000;
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            Epic epic = new Epic("Epic " + i, "Description", 0);
+            taskManager.createEpic(epic);
+            epics.add(epic);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(writers + readers);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<?>> readerFutures = new ArrayList<>();
+        for (int r = 0; r < readers; r++) {
+            readerFutures.add(executor.submit(() -> {
+                while (running.get()) {
+                    assertNoOverlaps(taskManager.getPrioritizedTasks());
+                    for (Epic epic : epics) {
+                        taskManager.getEpicById(epic.getId());
+                        taskManager.getSubtasksOfEpic(epic.getId());
+                    }
+                    taskManager.getHistory();
+                }
+                return null;
+            }));
+        }
+        List<Future<?>> writerFutures = new ArrayList<>();
+        for (Epic epic : epics) {
+            writerFutures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                List<Integer> own = new ArrayList<>();
+                for (int i = 0; i < operationsPerWriter; i++) {
+                    // Общий для всех потоков набор слотов, чтобы пересечения возникали и отклонялись
+                    LocalDateTime start = START.plusMinutes(random.nextInt(2_000) * 15L);
+                    TaskStatus status = TaskStatus.values()[random.nextInt(TaskStatus.values().length)];
+                    try {
+                        int action = random.nextInt(3);
+                        if (action == 0 || own.isEmpty()) {
+                            Subtask subtask = new Subtask("Subtask", "Description", 0, status,
+                                    Duration.ofMinutes(15 + random.nextInt(30)), start, epic.getId());
+                            taskManager.createSubtask(subtask);
+                            own.add(subtask.getId());
+                        } else if (action == 1) {
+                            int id = own.get(random.nextInt(own.size()));
+                            taskManager.updateSubtask(new Subtask("Subtask", "Updated", id, status,
+                                    Duration.ofMinutes(15), start, epic.getId()));
+                        } else {
+                            int id = own.remove(random.nextInt(own.size()));
+                            taskManager.deleteSubtaskById(id);
+                        }
+                    } catch (IllegalArgumentException e) {
+                        // Пересечение по времени — ожидаемый отказ
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : writerFutures) {
+            future.get();
+        }
+        running.set(false);
+        for (Future<?> future : readerFutures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        List<Task> prioritized = taskManager.getPrioritizedTasks();
+        assertNoOverlaps(prioritized);
+        assertEquals(taskManager.getAllSubtasks().size(), prioritized.size(),
+                "В приоритетном списке должны быть все подзадачи.");
+        for (Epic epic : epics) {
+            List<Subtask> subtasks = taskManager.getSubtasksOfEpic(epic.getId());
+            assertEquals(epic.getSubtaskIds().size(), subtasks.size(), "Эпик не должен ссылаться на удалённые подзадачи.");
+            assertEquals(expectedStatus(subtasks), epic.getStatus(), "Статус эпика должен соответствовать подзадачам.");
+        }
+    }
+
+    private static void assertNoOverlaps(List<Task> prioritized) {
+        for (int i = 1; i < prioritized.size(); i++) {
+            Task previous = prioritized.get(i - 1);
+            Task current = prioritized.get(i);
+            if (previous.getStartTime() != null && current.getStartTime() != null) {
+                assertFalse(current.getStartTime().isBefore(previous.getEndTime()),
+                        "Задачи " + previous.getId() + " и " + current.getId() + " пересекаются.");
+            }
+        }
+    }
+
+    private static TaskStatus expectedStatus(List<Subtask> subtasks) {
+        if (subtasks.isEmpty() || subtasks.stream().allMatch(s -> s.getStatus() == TaskStatus.NEW)) {
+            return TaskStatus.NEW;
+        }
+        if (subtasks.stream().allMatch(s -> s.getStatus() == TaskStatus.DONE)) {
+            return TaskStatus.DONE;
+        }
+        return TaskStatus.IN_PROGRESS;
+    }
+}
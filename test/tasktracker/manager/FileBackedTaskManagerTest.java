@@ -6,10 +6,12 @@ import tasktracker.tasks.Task;
 import tasktracker.tasks.Epic;
 import tasktracker.tasks.Subtask;
 import tasktracker.status.TaskStatus;
+import tasktracker.exceptions.ManagerSaveException;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -145,4 +147,425 @@ class FileBackedTaskManagerTest {
         assertThrows(RuntimeException.class, () -> FileBackedTaskManager.loadFromFile(tempFile),
                 "Загрузка из повреждённого файла должна вызывать исключение.");
     }
+
+    @Test
+    void shouldNotRewriteFileWhileLoading() throws IOException {
+        String csvContent = String.join("\n",
+                "id,type,name,status,description,duration,startTime,epic",
+                "1,TASK,Task 1,NEW,Description of task 1,30,2023-01-01T10:00,",
+                "2,EPIC,Epic 1,NEW,Description of epic 1,,,",
+                "3,SUBTASK,Subtask 1,DONE,Description of subtask 1,20,2023-01-01T11:00,2"
+        );
+        Files.writeString(tempFile.toPath(), csvContent);
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
+
+        assertEquals(csvContent, Files.readString(tempFile.toPath()), "Загрузка не должна перезаписывать файл.");
+        assertEquals(TaskStatus.DONE, loadedManager.getEpicById(2).getStatus(), "Статус эпика должен быть рассчитан при загрузке.");
+        assertEquals(List.of(loadedManager.getTaskById(1), loadedManager.getSubtaskById(3)),
+                loadedManager.getPrioritizedTasks(), "Приоритетный список должен быть построен при загрузке.");
+        assertEquals(4, loadedManager.generateId(), "Новые id не должны пересекаться с загруженными.");
+    }
+
+    @Test
+    void shouldReplayJournalAfterRestart() throws IOException {
+        FileBackedTaskManager manager = FileBackedTaskManager.withJournal(tempFile);
+        String emptySnapshot = Files.readString(tempFile.toPath());
+
+        Task task = new Task("Task 1", "Description 1", 0, TaskStatus.NEW,
+                Duration.ofMinutes(30), LocalDateTime.of(2023, 1, 1, 10, 0));
+        Epic epic = new Epic("Epic 1", "Description 2", 0);
+        manager.createTask(task);
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Subtask 1", "Description 3", 0, TaskStatus.NEW,
+                Duration.ofMinutes(20), LocalDateTime.of(2023, 1, 1, 11, 0), epic.getId());
+        manager.createSubtask(subtask);
+        subtask.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(subtask);
+        manager.deleteTaskById(task.getId());
+
+        assertEquals(emptySnapshot, Files.readString(tempFile.toPath()),
+                "В режиме журнала снимок не должен перезаписываться при каждом изменении.");
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
+        assertTrue(loadedManager.getAllTasks().isEmpty(), "Удалённая задача не должна восстановиться.");
+        assertEquals(List.of(epic), loadedManager.getAllEpics(), "Эпик должен восстановиться из журнала.");
+        assertEquals(List.of(subtask), loadedManager.getAllSubtasks(), "Подзадача должна восстановиться из журнала.");
+        assertEquals(TaskStatus.DONE, loadedManager.getEpicById(epic.getId()).getStatus(),
+                "Статус эпика должен учитывать обновление из журнала.");
+        assertTrue(loadedManager.generateId() > subtask.getId(), "Новые id не должны пересекаться с восстановленными.");
+    }
+
+    @Test
+    void shouldCompactJournalIntoSnapshot() throws IOException {
+        FileBackedTaskManager manager = FileBackedTaskManager.withJournal(tempFile);
+        manager.setCompactionThreshold(2);
+
+        Task task1 = new Task("Task 1", "Description 1", 0, TaskStatus.NEW,
+                Duration.ofMinutes(30), LocalDateTime.of(2023, 1, 1, 10, 0));
+        Task task2 = new Task("Task 2", "Description 2", 0, TaskStatus.NEW,
+                Duration.ofMinutes(30), LocalDateTime.of(2023, 1, 1, 11, 0));
+        Task task3 = new Task("Task 3", "Description 3", 0, TaskStatus.NEW,
+                Duration.ofMinutes(30), LocalDateTime.of(2023, 1, 1, 12, 0));
+        manager.createTask(task1);
+        manager.createTask(task2);
+        manager.createTask(task3);
+
+        // Заголовок, две задачи и строка контрольной суммы
+        assertEquals(4, Files.readAllLines(tempFile.toPath()).size(),
+                "После двух записей журнал должен быть уплотнён в снимок.");
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
+        assertEquals(List.of(task1, task2, task3), loadedManager.getPrioritizedTasks(),
+                "Снимок и остаток журнала вместе должны дать полное состояние.");
+    }
+
+    @Test
+    void shouldBatchJournalWritesWithGroupCommit() {
+        DurabilityPolicy policy = DurabilityPolicy.groupCommit(3, 60_000);
+        FileBackedTaskManager manager = FileBackedTaskManager.withJournal(tempFile, policy);
+        LocalDateTime fixedTime = LocalDateTime.of(2023, 1, 1, 10, 0);
+
+        manager.createTask(new Task("Task 1", "Description", 0, TaskStatus.NEW, Duration.ofMinutes(30), fixedTime));
+        manager.createTask(new Task("Task 2", "Description", 0, TaskStatus.NEW, Duration.ofMinutes(30),
+                fixedTime.plusHours(1)));
+        assertEquals(2, manager.getUnsyncedOperations(), "До заполнения пакета операции не сброшены на диск.");
+        assertTrue(manager.getUnsyncedOperations() <= policy.maxOperationsAtRisk());
+
+        manager.createTask(new Task("Task 3", "Description", 0, TaskStatus.NEW, Duration.ofMinutes(30),
+                fixedTime.plusHours(2)));
+        assertEquals(0, manager.getUnsyncedOperations(), "Полный пакет должен быть записан одним fsync.");
+
+        manager.createTask(new Task("Task 4", "Description", 0, TaskStatus.NEW, Duration.ofMinutes(30),
+                fixedTime.plusHours(3)));
+        manager.close();
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
+        assertEquals(4, loadedManager.getAllTasks().size(), "При закрытии должен сбрасываться неполный пакет.");
+    }
+
+    @Test
+    void shouldNotStartJournalThreadWhenFirstSnapshotFails() {
+        long before = journalThreads();
+        File missing = new File(tempFile.getParentFile(), "missing-dir/tasks.csv");
+
+        assertThrows(ManagerSaveException.class,
+                () -> FileBackedTaskManager.withJournal(missing, DurabilityPolicy.groupCommit(10, 10)));
+        assertEquals(before, journalThreads(), "Поток журнала не должен оставаться после неудачного создания.");
+    }
+
+    private static long journalThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("journal-flush"))
+                .count();
+    }
+
+    @Test
+    void shouldRestoreHistoryAfterRestart() throws IOException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile);
+        LocalDateTime fixedTime = LocalDateTime.of(2023, 1, 1, 10, 0);
+        Task task1 = new Task("Task 1", "Description", 0, TaskStatus.NEW, Duration.ofMinutes(30), fixedTime);
+        Task task2 = new Task("Task 2", "Description", 0, TaskStatus.NEW, Duration.ofMinutes(30),
+                fixedTime.plusHours(1));
+        Task task3 = new Task("Task 3", "Description", 0, TaskStatus.NEW, Duration.ofMinutes(30),
+                fixedTime.plusHours(2));
+        manager.createTask(task1);
+        manager.createTask(task2);
+        manager.createTask(task3);
+
+        manager.getTaskById(task1.getId());
+        manager.getTaskById(task2.getId());
+        manager.getTaskById(task3.getId());
+        manager.getTaskById(task1.getId());
+        manager.deleteTaskById(task2.getId());
+        manager.close();
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
+        assertEquals(List.of(task3, task1), loadedManager.getHistory(),
+                "История должна восстанавливаться в порядке просмотров без удалённых задач.");
+        assertEquals(2, Files.readAllLines(HistoryLog.fileFor(tempFile).toPath()).size(),
+                "При загрузке журнал просмотров должен уплотняться до содержимого истории.");
+    }
+
+    @Test
+    void shouldFlushViewsWithoutCloseAndForgetBulkDeletedIds() {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile);
+        Task task = new Task("Task", "Description", 0, TaskStatus.NEW);
+        manager.createTask(task);
+        Epic epic = new Epic("Epic", "Description", 0);
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Subtask", "Description", 0, TaskStatus.NEW, null, null, epic.getId());
+        manager.createSubtask(subtask);
+        manager.getTaskById(task.getId());
+        manager.getEpicById(epic.getId());
+        manager.getSubtaskById(subtask.getId());
+
+        // Без close записи передаются ОС фоновым потоком; sync делает то же сразу, без ожидания потока
+        manager.sync();
+        assertEquals(List.of(task, epic, subtask), FileBackedTaskManager.loadFromFile(tempFile).getHistory(),
+                "Просмотры должны попадать в файл без вызова close.");
+
+        manager.deleteEpicById(epic.getId());
+        manager.close();
+        assertEquals(List.of(task), FileBackedTaskManager.loadFromFile(tempFile).getHistory(),
+                "Подзадачи удалённого эпика не должны возвращаться в историю.");
+    }
+
+    @Test
+    void shouldCompactHistoryLogByConfiguredHistoryCapacity() throws IOException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile, new InMemoryHistoryManager(2));
+        Task first = new Task("First", "Description", 0, TaskStatus.NEW);
+        Task second = new Task("Second", "Description", 0, TaskStatus.NEW);
+        manager.createTask(first);
+        manager.createTask(second);
+        // Восемь записей — в HistoryLog.COMPACTION_FACTOR раз больше размера истории
+        for (int i = 0; i < 4; i++) {
+            manager.getTaskById(first.getId());
+            manager.getTaskById(second.getId());
+        }
+        manager.sync();
+
+        assertEquals(List.of("V," + first.getId(), "V," + second.getId()),
+                Files.readAllLines(HistoryLog.fileFor(tempFile).toPath()),
+                "Журнал просмотров должен уплотняться по размеру истории менеджера, а не по размеру по умолчанию.");
+        manager.close();
+    }
+
+    @Test
+    void shouldKeepHistoryFileUntilNewManagerWritesSnapshot() throws IOException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile);
+        Task task = new Task("Task", "Description", 0, TaskStatus.NEW);
+        manager.createTask(task);
+        manager.getTaskById(task.getId());
+        manager.close();
+
+        FileBackedTaskManager reopened = new FileBackedTaskManager(tempFile);
+        assertEquals(1, Files.readAllLines(HistoryLog.fileFor(tempFile).toPath()).size(),
+                "Открытие менеджера не должно обрезать журнал просмотров.");
+        reopened.createTask(new Task("Other", "Description", 0, TaskStatus.NEW));
+        reopened.close();
+        assertTrue(FileBackedTaskManager.loadFromFile(tempFile).getHistory().isEmpty(),
+                "С первым снимком нового менеджера журнал просмотров должен относиться к нему.");
+    }
+
+    @Test
+    void shouldSaveAndLoadBinarySnapshot() throws IOException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile);
+        manager.setSnapshotFormat(SnapshotFormat.BINARY);
+        LocalDateTime preciseTime = LocalDateTime.of(2023, 1, 1, 10, 0, 15, 123_456_789);
+        Task task = new Task("Задача", "Описание, с запятой", 0, TaskStatus.IN_PROGRESS,
+                Duration.ofMinutes(30), preciseTime);
+        Task unscheduled = new Task("Без времени", "Описание", 0, TaskStatus.NEW, null, null);
+        manager.createTask(task);
+        manager.createTask(unscheduled);
+        Epic epic = new Epic("Эпик", "Описание", 0);
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", 0, TaskStatus.DONE, Duration.ofMinutes(20),
+                LocalDateTime.of(2023, 1, 1, 12, 0), epic.getId());
+        manager.createSubtask(subtask);
+        Task deleted = new Task("Удалённая", "Описание", 0, TaskStatus.NEW, null, null);
+        manager.createTask(deleted);
+        manager.deleteTaskById(deleted.getId());
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
+
+        assertEquals(SnapshotFormat.BINARY, loadedManager.getSnapshotFormat(), "Формат должен определяться по файлу.");
+        assertEquals(List.of(task, unscheduled), loadedManager.getAllTasks());
+        assertEquals(List.of(subtask), loadedManager.getAllSubtasks());
+        Task loadedTask = loadedManager.getTaskById(task.getId());
+        assertEquals(preciseTime, loadedTask.getStartTime(), "Время начала должно сохраняться без потери точности.");
+        assertEquals("Описание, с запятой", loadedTask.getDescription());
+        assertEquals(TaskStatus.DONE, loadedManager.getEpicById(epic.getId()).getStatus(),
+                "Статус эпика должен быть рассчитан при загрузке.");
+        assertEquals(deleted.getId() + 1, loadedManager.generateId(),
+                "Счётчик id из заголовка не должен выдавать id удалённых задач повторно.");
+    }
+
+    @Test
+    void shouldRejectUnsupportedBinarySnapshotVersion() throws IOException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile);
+        manager.setSnapshotFormat(SnapshotFormat.BINARY);
+        manager.saveToFile();
+        byte[] content = Files.readAllBytes(tempFile.toPath());
+        content[7] = 99;
+        Files.write(tempFile.toPath(), content);
+
+        assertThrows(IllegalArgumentException.class, () -> FileBackedTaskManager.loadFromFile(tempFile),
+                "Снимок неизвестной версии не должен загружаться.");
+    }
+
+    @Test
+    void shouldKeepCommasQuotesAndLineBreaksInCsv() throws IOException {
+        FileBackedTaskManager manager = FileBackedTaskManager.withJournal(tempFile);
+        manager.setCompactionThreshold(2);
+        Task task1 = new Task("Купить: хлеб, молоко", "Сказать \"привет\"\nи уйти", 0, TaskStatus.NEW,
+                Duration.ofMinutes(30), LocalDateTime.of(2023, 1, 1, 10, 0));
+        Task task2 = new Task("\"В кавычках\"", "Строка\r\nс CRLF,", 0, TaskStatus.NEW, null, null);
+        Task task3 = new Task("Из журнала", "Первая строка\nвторая", 0, TaskStatus.NEW, null, null);
+        manager.createTask(task1);
+        manager.createTask(task2); // Уплотнение: первые две задачи попадают в снимок
+        manager.createTask(task3);
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
+        for (Task task : List.of(task1, task2, task3)) {
+            Task loaded = loadedManager.getTaskById(task.getId());
+            assertEquals(task.getTitle(), loaded.getTitle(), "Название должно сохраняться без искажений.");
+            assertEquals(task.getDescription(), loaded.getDescription(), "Описание должно сохраняться без искажений.");
+        }
+        assertEquals(3, loadedManager.getAllTasks().size());
+    }
+
+    @Test
+    void shouldLoadLegacyFileWithQuotesAsPlainText() throws IOException {
+        String csvContent = String.join("\n",
+                "id,type,name,status,description,duration,startTime,epic",
+                "1,TASK,\"Срочно\" позвонить,NEW,Описание \"в кавычках\",30,2023-01-01T10:00,",
+                "2,TASK,\",NEW,Одна кавычка,,,"
+        );
+        Files.writeString(tempFile.toPath(), csvContent);
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
+
+        assertEquals("\"Срочно\" позвонить", loadedManager.getTaskById(1).getTitle(),
+                "В старом формате кавычки — часть названия.");
+        assertEquals("Описание \"в кавычках\"", loadedManager.getTaskById(1).getDescription());
+        assertEquals("\"", loadedManager.getTaskById(2).getTitle(), "Одиночная кавычка не должна ломать загрузку.");
+    }
+
+    @Test
+    void shouldRejectSnapshotWithWrongChecksum() throws IOException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile);
+        manager.createTask(new Task("Task 1", "Description", 0, TaskStatus.NEW, Duration.ofMinutes(30),
+                LocalDateTime.of(2023, 1, 1, 10, 0)));
+        String content = Files.readString(tempFile.toPath());
+        Files.writeString(tempFile.toPath(), content.replace("Task 1", "Task 2"));
+
+        assertThrows(IllegalArgumentException.class, () -> FileBackedTaskManager.loadFromFile(tempFile),
+                "Изменённый снимок не должен загружаться.");
+
+        manager.setSnapshotFormat(SnapshotFormat.BINARY);
+        manager.saveToFile();
+        byte[] binary = Files.readAllBytes(tempFile.toPath());
+        binary[binary.length - 10] ^= 1;
+        Files.write(tempFile.toPath(), binary);
+
+        assertThrows(IllegalArgumentException.class, () -> FileBackedTaskManager.loadFromFile(tempFile),
+                "Изменённый двоичный снимок не должен загружаться.");
+    }
+
+    @Test
+    void shouldRejectTruncatedSnapshot() throws IOException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile);
+        manager.createTask(new Task("Task 1", "Description", 0, TaskStatus.NEW, null, null));
+        manager.createTask(new Task("Task 2", "Description", 0, TaskStatus.NEW, null, null));
+        String content = Files.readString(tempFile.toPath());
+        assertTrue(content.startsWith("#crc,"), "Контрольная сумма должна быть в первой строке.");
+        // Обрезка по границе строки: без проверки файл выглядел бы целым снимком с одной задачей
+        Files.writeString(tempFile.toPath(), content.substring(0, content.lastIndexOf('\n', content.indexOf("Task 2")) + 1));
+
+        assertThrows(IllegalArgumentException.class, () -> FileBackedTaskManager.loadFromFile(tempFile),
+                "Обрезанный снимок не должен загружаться.");
+    }
+
+    @Test
+    void shouldReplaceSnapshotWithoutTemporaryFileLeft() throws IOException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tempFile);
+        manager.createTask(new Task("Task 1", "Description", 0, TaskStatus.NEW, null, null));
+
+        assertFalse(new File(tempFile.getPath() + ".tmp").exists(), "Временный файл должен быть переименован.");
+        assertEquals(1, FileBackedTaskManager.loadFromFile(tempFile).getAllTasks().size());
+    }
+
+    @Test
+    void shouldFinishInterruptedMoveOfSubtaskBetweenSegments() throws IOException {
+        FileBackedTaskManager manager = FileBackedTaskManager.withSegments(tempFile, 2);
+        Epic first = new Epic("First", "Description", 0);
+        manager.createEpic(first); // id 1, сегмент 0-2
+        manager.createTask(new Task("Task", "Description", 0, TaskStatus.NEW, null, null)); // id 2
+        Epic second = new Epic("Second", "Description", 0);
+        manager.createEpic(second); // id 3, сегмент 2-4
+        Subtask subtask = new Subtask("Subtask", "Description", 0, TaskStatus.NEW, null, null, first.getId());
+        manager.createSubtask(subtask);
+        Path directory = FileBackedTaskManager.segmentsDirectory(tempFile).toPath();
+        byte[] before = Files.readAllBytes(directory.resolve("0-2.bin"));
+
+        manager.updateSubtask(new Subtask("Subtask", "Description", subtask.getId(), TaskStatus.NEW, null, null,
+                second.getId()));
+
+        // Сбой после записи перечня: новый сегмент 0-2 подготовлен, но не переименован
+        Files.move(directory.resolve("0-2.bin"), directory.resolve("0-2.bin" + FileBackedTaskManager.STAGED_SUFFIX));
+        Files.write(directory.resolve("0-2.bin"), before);
+        Files.writeString(directory.resolve(FileBackedTaskManager.SEGMENT_INTENT), "0-2.bin\n2-4.bin\n");
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
+        assertTrue(loadedManager.getSubtasksOfEpic(first.getId()).isEmpty(), "Замена сегментов должна завершиться.");
+        assertEquals(List.of(subtask.getId()), loadedManager.getSubtasksOfEpic(second.getId()).stream()
+                .map(Task::getId).toList(), "Подзадача должна остаться ровно в одном эпике.");
+        assertFalse(Files.exists(directory.resolve(FileBackedTaskManager.SEGMENT_INTENT)));
+
+        // Сбой до записи перечня: подготовленный сегмент отбрасывается, остаются прежние
+        Files.write(directory.resolve("0-2.bin" + FileBackedTaskManager.STAGED_SUFFIX), before);
+        loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
+        assertTrue(loadedManager.getSubtasksOfEpic(first.getId()).isEmpty());
+        assertFalse(Files.exists(directory.resolve("0-2.bin" + FileBackedTaskManager.STAGED_SUFFIX)));
+    }
+
+    @Test
+    void shouldRewriteOnlyChangedSegments() {
+        FileBackedTaskManager manager = FileBackedTaskManager.withSegments(tempFile, 10);
+        LocalDateTime fixedTime = LocalDateTime.of(2023, 1, 1, 10, 0);
+        for (int i = 0; i < 25; i++) {
+            manager.createTask(new Task("Task " + i, "Description", 0, TaskStatus.NEW, Duration.ofMinutes(30),
+                    fixedTime.plusHours(i)));
+        }
+        Epic epic = new Epic("Epic", "Description", 0);
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Subtask", "Description", 0, TaskStatus.DONE, null, null, epic.getId());
+        manager.createSubtask(subtask);
+
+        File[] segments = FileBackedTaskManager.segmentsDirectory(tempFile).listFiles();
+        assertEquals(3, segments.length, "Id 1-27 должны занять три сегмента по 10 id.");
+        for (File segment : segments) {
+            assertTrue(segment.setLastModified(0));
+        }
+
+        Task changed = manager.getTaskById(15);
+        changed.setTitle("Changed");
+        manager.updateTask(changed);
+        manager.deleteSubtaskById(subtask.getId());
+
+        for (File segment : segments) {
+            boolean touched = segment.lastModified() != 0;
+            assertEquals(segment.getName().equals("10-20.bin") || segment.getName().equals("20-30.bin"), touched,
+                    "Переписываться должны только сегменты изменённых записей: " + segment.getName());
+        }
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
+        assertEquals(manager.getAllTasks(), loadedManager.getAllTasks());
+        assertEquals("Changed", loadedManager.getTaskById(15).getTitle());
+        assertTrue(loadedManager.getSubtasksOfEpic(epic.getId()).isEmpty());
+        assertEquals(subtask.getId() + 1, loadedManager.generateId(), "Счётчик id должен сохраняться в сегментах.");
+    }
+
+    @Test
+    void shouldOpenSegmentedBoardThroughConcurrentManager() {
+        FileBackedTaskManager manager = FileBackedTaskManager.withSegments(tempFile, 10);
+        Task first = new Task("First", "Description", 0, TaskStatus.NEW, null, null);
+        manager.createTask(first);
+        manager.getTaskById(first.getId());
+        manager.close();
+
+        // Доска загружается из сегментов, а не из пустого файла снимка рядом
+        try (TaskManager concurrent = Managers.getConcurrent(tempFile, DurabilityPolicy.groupCommit(64, 10))) {
+            assertEquals(List.of(first), concurrent.getAllTasks(), "Задачи должны загрузиться из сегментов.");
+            Task second = new Task("Second", "Description", 0, TaskStatus.NEW, null, null);
+            concurrent.createTask(second);
+            concurrent.getTaskById(second.getId());
+        }
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
+        assertEquals(2, loadedManager.getAllTasks().size(), "Изменения должны сохраниться в сегментах.");
+        assertEquals(List.of(first.getId(), first.getId() + 1), loadedManager.getHistory().stream()
+                .map(Task::getId).toList(), "Асинхронная история должна восстановиться и сохраниться.");
+    }
 }
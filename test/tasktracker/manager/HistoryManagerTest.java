@@ -7,7 +7,9 @@ import tasktracker.status.TaskStatus;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -114,4 +116,71 @@ class HistoryManagerTest {
 
         assertTrue(history.isEmpty(), "История должна быть пустой после удаления единственной задачи.");
     }
+
+    @Test
+    void shouldEvictOldestViewWhenCapacityIsReached() {
+        HistoryManager bounded = Managers.getDefaultHistory(3);
+        for (int id = 1; id <= 5; id++) {
+            bounded.add(new Task("Task " + id, "Description", id, TaskStatus.NEW));
+        }
+        bounded.add(new Task("Task 3", "Description", 3, TaskStatus.NEW)); // Повторный просмотр
+
+        List<Integer> ids = bounded.getHistory().stream().map(Task::getId).toList();
+        assertEquals(List.of(4, 5, 3), ids, "История должна хранить только последние просмотры.");
+
+        bounded.add(new Task("Task 6", "Description", 6, TaskStatus.NEW));
+        assertEquals(List.of(5, 3, 6), bounded.getHistory().stream().map(Task::getId).toList(),
+                "При переполнении вытесняется самый старый просмотр.");
+    }
+
+    @Test
+    void shouldReturnMostRecentViewsWithLimit() {
+        for (int id = 1; id <= 4; id++) {
+            historyManager.add(new Task("Task " + id, "Description", id, TaskStatus.NEW));
+        }
+
+        assertEquals(List.of(3, 4), historyManager.getHistory(2).stream().map(Task::getId).toList(),
+                "Должны возвращаться последние просмотры от старых к новым.");
+        assertEquals(4, historyManager.getHistory(10).size());
+        assertTrue(historyManager.getHistory(0).isEmpty());
+    }
+
+    @Test
+    void shouldMatchLinkedHashMapModelUnderRandomOperations() {
+        int capacity = 50;
+        HistoryManager bounded = Managers.getDefaultHistory(capacity);
+        LinkedHashMap<Integer, Task> model = new LinkedHashMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 20_000; i++) {
+            int id = random.nextInt(120);
+            if (random.nextInt(4) == 0) {
+                bounded.remove(id);
+                model.remove(id);
+            } else {
+                Task task = new Task("Task " + id, "Description", id, TaskStatus.NEW);
+                bounded.add(task);
+                model.remove(id);
+                model.put(id, task);
+                if (model.size() > capacity) {
+                    model.remove(model.keySet().iterator().next());
+                }
+            }
+        }
+        assertEquals(List.copyOf(model.values()), bounded.getHistory(),
+                "История должна совпадать с моделью после повторных просмотров, удалений и вытеснений.");
+    }
+
+    @Test
+    void shouldReturnModifiableCopyOfHistory() {
+        historyManager.add(new Task("Task 1", "Description 1", 1, TaskStatus.NEW));
+        historyManager.add(new Task("Task 2", "Description 2", 2, TaskStatus.NEW));
+
+        List<Task> history = historyManager.getHistory();
+        history.add(new Task("Task 3", "Description 3", 3, TaskStatus.NEW));
+        List<Task> last = historyManager.getHistory(1);
+        last.clear();
+
+        assertEquals(2, historyManager.getHistory().size(), "Изменение копии не должно менять историю.");
+        assertEquals(2, historyManager.getHistory(1).get(0).getId());
+    }
 }
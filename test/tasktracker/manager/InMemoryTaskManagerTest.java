@@ -9,6 +9,7 @@ import tasktracker.status.TaskStatus;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -121,4 +122,167 @@ class InMemoryTaskManagerTest {
 
         assertEquals(TaskStatus.DONE, taskManager.getEpicById(epic.getId()).getStatus(), "Статус эпика должен быть DONE после выполнения всех подзадач.");
     }
+
+    @Test
+    void shouldAllowUpdatingTaskWithinItsOwnInterval() {
+        LocalDateTime fixedTime = LocalDateTime.of(2023, 1, 1, 10, 0);
+        Task task = new Task("Task", "Description", taskManager.generateId(), TaskStatus.NEW,
+                Duration.ofMinutes(60), fixedTime);
+        taskManager.createTask(task);
+
+        Task moved = new Task("Task", "Description", task.getId(), TaskStatus.IN_PROGRESS,
+                Duration.ofMinutes(60), fixedTime.plusMinutes(30));
+        assertDoesNotThrow(() -> taskManager.updateTask(moved), "Задача не должна пересекаться сама с собой.");
+
+        Task other = new Task("Other", "Description", taskManager.generateId(), TaskStatus.NEW,
+                Duration.ofMinutes(30), fixedTime);
+        assertDoesNotThrow(() -> taskManager.createTask(other), "Освободившееся после переноса время должно быть доступно.");
+        assertEquals(List.of(other, moved), taskManager.getPrioritizedTasks(), "Порядок должен учитывать новое время.");
+    }
+
+    @Test
+    void shouldFreeIntervalAfterSubtaskDeletion() {
+        LocalDateTime fixedTime = LocalDateTime.of(2023, 1, 1, 10, 0);
+        Epic epic = new Epic("Epic", "Description", taskManager.generateId());
+        taskManager.createEpic(epic);
+        Subtask subtask = new Subtask("Subtask", "Description", taskManager.generateId(), TaskStatus.NEW,
+                Duration.ofMinutes(60), fixedTime, epic.getId());
+        taskManager.createSubtask(subtask);
+
+        Task overlapping = new Task("Task", "Description", taskManager.generateId(), TaskStatus.NEW,
+                Duration.ofMinutes(30), fixedTime.plusMinutes(15));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.createTask(overlapping));
+
+        taskManager.deleteSubtaskById(subtask.getId());
+        assertDoesNotThrow(() -> taskManager.createTask(overlapping), "После удаления подзадачи интервал должен освободиться.");
+    }
+
+    @Test
+    void shouldReturnTasksOverlappingTimeWindow() {
+        LocalDateTime day = LocalDateTime.of(2023, 1, 3, 0, 0);
+        Task early = new Task("Early", "Description", 0, TaskStatus.NEW,
+                Duration.ofMinutes(120), day.plusHours(8));
+        Task morning = new Task("Morning", "Description", 0, TaskStatus.NEW,
+                Duration.ofMinutes(60), day.plusHours(10));
+        Task evening = new Task("Evening", "Description", 0, TaskStatus.NEW,
+                Duration.ofMinutes(60), day.plusHours(18));
+        Task unscheduled = new Task("Unscheduled", "Description", 0, TaskStatus.NEW);
+        taskManager.createTask(evening);
+        taskManager.createTask(morning);
+        taskManager.createTask(early);
+        taskManager.createTask(unscheduled);
+
+        assertEquals(List.of(early, morning), taskManager.getTasksBetween(day.plusHours(9), day.plusHours(18)),
+                "В окно должны попасть задачи, пересекающиеся с ним, в порядке времени начала.");
+        assertEquals(List.of(evening), taskManager.getTasksBetween(day.plusHours(12), null),
+                "Окно без конца должно включать все задачи после начала.");
+        assertTrue(taskManager.getTasksBetween(day.plusHours(11), day.plusHours(18)).isEmpty(),
+                "Задачи, закончившиеся к началу окна или начинающиеся в его конце, не должны попадать в окно.");
+        assertEquals(List.of(morning, evening), taskManager.getNextTasks(day.plusHours(9), 5),
+                "Следующими должны быть задачи, начинающиеся не раньше указанного времени.");
+        assertEquals(List.of(morning), taskManager.getNextTasks(day.plusHours(9), 1));
+        assertEquals(List.of(early), taskManager.getTasksBetween(day.plusHours(9), day.plusHours(18), 1),
+                "Из окна должны возвращаться только первые limit задач.");
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.getTasksBetween(day.plusHours(18), day.plusHours(9)));
+    }
+
+    @Test
+    void shouldFindEarliestFreeSlotWithinWorkingHours() {
+        // 2024-01-05 — пятница
+        LocalDateTime friday = LocalDateTime.of(2024, 1, 5, 0, 0);
+        taskManager.createTask(new Task("Standup", "Description", 0, TaskStatus.NEW,
+                Duration.ofMinutes(30), friday.plusHours(9)));
+        taskManager.createTask(new Task("Review", "Description", 0, TaskStatus.NEW,
+                Duration.ofMinutes(60), friday.plusHours(10)));
+        WorkingHours hours = WorkingHours.weekdays(LocalTime.of(9, 0), LocalTime.of(12, 0));
+
+        assertEquals(friday.plusHours(9).plusMinutes(30),
+                taskManager.findFreeSlot(Duration.ofMinutes(30), friday, hours),
+                "Задача должна встать в первый подходящий промежуток.");
+        assertEquals(friday.plusHours(11),
+                taskManager.findFreeSlot(Duration.ofMinutes(45), friday, hours),
+                "Короткий промежуток должен пропускаться.");
+        assertEquals(LocalDateTime.of(2024, 1, 8, 9, 0),
+                taskManager.findFreeSlot(Duration.ofMinutes(90), friday.plusHours(10), hours),
+                "Не поместившаяся в пятницу задача должна перейти на понедельник.");
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.findFreeSlot(Duration.ofHours(4), friday, hours));
+    }
+
+    @Test
+    void shouldAutoScheduleBacklogIntoGaps() {
+        LocalDateTime day = LocalDateTime.of(2024, 1, 8, 9, 0);
+        taskManager.createTask(new Task("Fixed", "Description", 0, TaskStatus.NEW,
+                Duration.ofMinutes(30), day.plusMinutes(30)));
+        Epic epic = new Epic("Epic", "Description", 0);
+        taskManager.createEpic(epic);
+        Task existing = new Task("Existing", "Description", 0, TaskStatus.NEW);
+        existing.setDuration(Duration.ofMinutes(60));
+        taskManager.createTask(existing);
+
+        Task shortTask = new Task("Short", "Description", 0, TaskStatus.NEW);
+        shortTask.setDuration(Duration.ofMinutes(20));
+        Subtask subtask = new Subtask("Subtask", "Description", 0, TaskStatus.NEW,
+                Duration.ofMinutes(10), null, epic.getId());
+
+        List<Task> scheduled = taskManager.autoSchedule(List.of(existing, shortTask, subtask), day,
+                WorkingHours.always());
+
+        assertEquals(3, scheduled.size(), "Все задачи без времени должны быть запланированы.");
+        assertEquals(day.plusHours(1), existing.getStartTime(), "Длинная задача должна встать после занятого времени.");
+        assertEquals(day, shortTask.getStartTime(), "Короткая задача должна занять промежуток перед занятым временем.");
+        assertEquals(day.plusMinutes(20), subtask.getStartTime());
+        assertEquals(4, taskManager.getTasksBetween(day, day.plusHours(2)).size());
+        assertEquals(day.plusMinutes(20), taskManager.getEpicById(epic.getId()).getStartTime(),
+                "Эпик должен получить время подзадачи.");
+        assertEquals(List.of(shortTask, subtask), taskManager.getPrioritizedTasks().subList(0, 2));
+    }
+
+    @Test
+    void shouldAcceptSubtaskWithoutStatus() {
+        Epic epic = new Epic("Epic", "Description", 0);
+        taskManager.createEpic(epic);
+        Subtask subtask = new Subtask("Subtask", "Description", 0, null, null, null, epic.getId());
+
+        taskManager.createSubtask(subtask);
+
+        assertEquals(List.of(subtask), taskManager.getAllSubtasks());
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus(), "Подзадача без статуса не NEW и не DONE.");
+        Subtask done = new Subtask("Subtask", "Description", subtask.getId(), TaskStatus.DONE, null, null,
+                epic.getId());
+        taskManager.updateSubtask(done);
+        assertEquals(TaskStatus.DONE, epic.getStatus(), "Вклад подзадачи без статуса должен заменяться.");
+        taskManager.deleteSubtaskById(subtask.getId());
+        assertEquals(TaskStatus.NEW, epic.getStatus());
+    }
+
+    @Test
+    void shouldRejectBacklogWithMissingEpicBeforePlacingAnything() {
+        LocalDateTime day = LocalDateTime.of(2024, 1, 8, 9, 0);
+        Task task = new Task("Task", "Description", 0, TaskStatus.NEW);
+        task.setDuration(Duration.ofMinutes(20));
+        Subtask orphan = new Subtask("Subtask", "Description", 0, TaskStatus.NEW,
+                Duration.ofMinutes(10), null, 999);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.autoSchedule(List.of(task, orphan), day, WorkingHours.always()));
+
+        assertTrue(taskManager.getAllTasks().isEmpty(), "Ни одна задача пачки не должна быть размещена.");
+        assertNull(task.getStartTime(), "Объекты вызывающего кода не должны меняться.");
+    }
+
+    @Test
+    void shouldCheckExistenceWithoutRecordingHistory() {
+        Task task = new Task("Task", "Description", 0, TaskStatus.NEW);
+        Epic epic = new Epic("Epic", "Description", 0);
+        taskManager.createTask(task);
+        taskManager.createEpic(epic);
+
+        assertTrue(taskManager.containsTask(task.getId()));
+        assertTrue(taskManager.containsEpic(epic.getId()));
+        assertFalse(taskManager.containsSubtask(task.getId()), "Id задачи не должен находиться среди подзадач.");
+        assertFalse(taskManager.containsTask(epic.getId()));
+        assertTrue(taskManager.getHistory().isEmpty(), "Проверка наличия не должна записываться в историю.");
+    }
 }
@@ -0,0 +1,60 @@
+package tasktracker.manager;
+
+import tasktracker.status.TaskStatus;
+import tasktracker.tasks.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+// Замер пропускной способности журнала при разных политиках сброса на диск. Не тест: запускается
+// вручную, например java -cp <классы main и test>:gson.jar tasktracker.manager.JournalBenchmark [каталог]
+// Числа зависят от диска, поэтому каталог лучше указывать на том же устройстве, где будет лежать файл задач.
+// Уплотнение отключено большим порогом, чтобы мерить только запись журнала; close() входит в замер,
+// так как дописывает и сбрасывает хвост журнала
+public class JournalBenchmark {
+    private static final int OPERATIONS = 20_000;
+    // При fsync каждой операции полный прогон занял бы минуты
+    private static final int SYNC_OPERATIONS = 2_000;
+    // Печатается медиана прогонов: один прогон сильно зависит от фоновой записи ОС
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        File directory = args.length > 0 ? new File(args[0]) : Files.createTempDirectory("journal-bench").toFile();
+        // Прогрев JIT
+        run(directory, DurabilityPolicy.osBuffered(), OPERATIONS);
+        System.out.printf("%-40s %10s %12s%n", "policy", "operations", "ops/s");
+        report(directory, DurabilityPolicy.syncEveryOperation(), SYNC_OPERATIONS);
+        report(directory, DurabilityPolicy.groupCommit(64, 10), OPERATIONS);
+        report(directory, DurabilityPolicy.osBuffered(), OPERATIONS);
+    }
+
+    private static void report(File directory, DurabilityPolicy policy, int operations) throws IOException {
+        double[] rates = new double[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            rates[i] = run(directory, policy, operations);
+        }
+        Arrays.sort(rates);
+        System.out.printf("%-40s %10d %12.0f%n", policy, operations, rates[ROUNDS / 2]);
+    }
+
+    // Операций в секунду за один прогон
+    private static double run(File directory, DurabilityPolicy policy, int operations) throws IOException {
+        File file = File.createTempFile("tasks", ".csv", directory);
+        try {
+            FileBackedTaskManager manager = FileBackedTaskManager.withJournal(file, policy);
+            manager.setCompactionThreshold(Integer.MAX_VALUE);
+            long began = System.nanoTime();
+            for (int i = 0; i < operations; i++) {
+                manager.createTask(new Task("Task " + i, "Description", 0, TaskStatus.NEW, null, null));
+            }
+            manager.close();
+            return operations / ((System.nanoTime() - began) / 1e9);
+        } finally {
+            Files.deleteIfExists(TaskJournal.fileFor(file).toPath());
+            Files.deleteIfExists(HistoryLog.fileFor(file).toPath());
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+}
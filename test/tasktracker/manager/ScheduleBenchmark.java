@@ -0,0 +1,86 @@
+package tasktracker.manager;
+
+import tasktracker.status.TaskStatus;
+import tasktracker.tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Замер проверки пересечений по времени на 10k, 100k и 1M запланированных задач. Не тест: запускается
+// вручную, например java -Xmx2g -cp <классы main и test>:gson.jar tasktracker.manager.ScheduleBenchmark
+// Для сравнения считается и прежняя проверка — обход всех задач (на выборке проверок, целиком она
+// на больших досках заняла бы часы)
+public class ScheduleBenchmark {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int UPDATES = 20_000;
+    private static final int LINEAR_CHECKS = 200;
+    // Результаты проверок, чтобы JIT не выбросил их как неиспользуемые
+    private static volatile long sink;
+
+    public static void main(String[] args) {
+        int[] sizes = args.length > 0 ? parse(args) : new int[]{10_000, 100_000, 1_000_000};
+        // Прогрев JIT на небольшой доске
+        run(10_000, false);
+        System.out.printf("%10s %16s %16s %18s%n", "tasks", "create, ops/s", "update, us/op", "linear check, us/op");
+        for (int size : sizes) {
+            run(size, true);
+        }
+    }
+
+    private static void run(int size, boolean print) {
+        TaskManager manager = new InMemoryTaskManager();
+        List<Task> created = new ArrayList<>(size);
+        long began = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            Task task = new Task("Task " + i, "Description", 0, TaskStatus.NEW, Duration.ofMinutes(30),
+                    START.plusHours(i));
+            manager.createTask(task);
+            created.add(task);
+        }
+        double createSeconds = (System.nanoTime() - began) / 1e9;
+
+        // Обновление случайной задачи: сдвиг на 0, 10 или 20 минут внутри её часа, с проверкой пересечений
+        Random random = new Random(1);
+        began = System.nanoTime();
+        for (int i = 0; i < UPDATES; i++) {
+            int index = random.nextInt(size);
+            Task task = created.get(index);
+            manager.updateTask(new Task(task.getTitle(), task.getDescription(), task.getId(), TaskStatus.IN_PROGRESS,
+                    Duration.ofMinutes(30), START.plusHours(index).plusMinutes(10 * (i % 3))));
+        }
+        double updateMicros = (System.nanoTime() - began) / 1e3 / UPDATES;
+
+        // Прежний алгоритм: задача сравнивается со всеми запланированными
+        List<Task> prioritized = manager.getPrioritizedTasks();
+        long overlaps = 0;
+        began = System.nanoTime();
+        for (int i = 0; i < LINEAR_CHECKS; i++) {
+            Task probe = new Task("Probe", "Description", -1, TaskStatus.NEW, Duration.ofMinutes(30),
+                    START.plusHours(random.nextInt(size)).plusMinutes(45));
+            if (prioritized.stream().anyMatch(existing -> overlaps(probe, existing))) {
+                overlaps++;
+            }
+        }
+        double linearMicros = (System.nanoTime() - began) / 1e3 / LINEAR_CHECKS;
+
+        if (print) {
+            System.out.printf("%10d %16.0f %16.2f %18.1f%n", size, size / createSeconds, updateMicros, linearMicros);
+        }
+        sink += overlaps;
+    }
+
+    private static boolean overlaps(Task first, Task second) {
+        return first.getStartTime().isBefore(second.getEndTime()) && second.getStartTime().isBefore(first.getEndTime());
+    }
+
+    private static int[] parse(String[] args) {
+        int[] sizes = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        return sizes;
+    }
+}
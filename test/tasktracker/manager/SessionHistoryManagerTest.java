@@ -0,0 +1,112 @@
+package tasktracker.manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasktracker.status.TaskStatus;
+import tasktracker.tasks.Task;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionHistoryManagerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private SessionHistoryManager sessions;
+
+    @BeforeEach
+    void setUp() {
+        sessions = new SessionHistoryManager(2, Duration.ofMinutes(10), 3, now::get);
+    }
+
+    private static Task task(int id) {
+        return new Task("Task " + id, "Description", id, TaskStatus.NEW);
+    }
+
+    @Test
+    void shouldKeepSeparateBoundedHistoryPerClient() {
+        sessions.add("alice", task(1));
+        sessions.add("alice", task(2));
+        sessions.add("alice", task(3));
+        sessions.add("bob", task(1));
+
+        assertEquals(List.of(task(2), task(3)), sessions.getHistory("alice"),
+                "История клиента должна быть ограничена и содержать последние просмотры.");
+        assertEquals(List.of(task(1)), sessions.getHistory("bob"), "Истории клиентов не должны смешиваться.");
+        assertTrue(sessions.getHistory("carol").isEmpty());
+        assertEquals(2, sessions.sessionCount(), "Чтение истории не должно создавать сессию.");
+
+        sessions.remove(1);
+        assertTrue(sessions.getHistory("bob").isEmpty(), "Удалённая задача должна пропасть из всех сессий.");
+    }
+
+    @Test
+    void shouldExpireIdleSessionsAndCapSessionCount() {
+        sessions.add("alice", task(1));
+        now.addAndGet(Duration.ofMinutes(11).toNanos());
+        assertTrue(sessions.getHistory("alice").isEmpty(), "Сессия без обращений должна истечь.");
+
+        sessions.add("a", task(1));
+        now.incrementAndGet();
+        sessions.add("b", task(1));
+        now.incrementAndGet();
+        sessions.add("c", task(1));
+        now.incrementAndGet();
+        sessions.getHistory("a");
+        sessions.add("d", task(1));
+
+        assertEquals(3, sessions.sessionCount(), "Число сессий не должно превышать лимит.");
+        assertTrue(sessions.getHistory("b").isEmpty(), "Вытесняться должна самая давно использованная сессия.");
+        assertFalse(sessions.getHistory("a").isEmpty());
+    }
+
+    @Test
+    void shouldRemoveTaskOnlyFromViewersAfterManyViews() {
+        sessions.add("a", task(1));
+        // Много просмотров вытесняют старые id из истории и приводят к пересборке индекса
+        for (int id = 2; id < 20; id++) {
+            sessions.add("b", task(id));
+        }
+        sessions.add("b", task(1));
+
+        sessions.remove(1);
+
+        assertTrue(sessions.getHistory("a").isEmpty(), "Задача должна удаляться из истории клиента a.");
+        assertEquals(List.of(19), sessions.getHistory("b").stream().map(Task::getId).toList(),
+                "Задача должна удаляться из истории клиента b.");
+    }
+
+    @Test
+    void shouldKeepSessionsConsistentUnderConcurrentViews() throws InterruptedException {
+        SessionHistoryManager shared = new SessionHistoryManager(10, Duration.ofMinutes(10), 100);
+        int threads = 8;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            workers.add(new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    shared.add("client-" + worker + "-" + (i % 200), task(i % 50));
+                    if (i % 100 == 0) {
+                        shared.remove(7);
+                    }
+                }
+            }));
+        }
+        workers.forEach(Thread::start);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        shared.remove(7);
+
+        assertTrue(shared.sessionCount() <= 100 + threads, "Лишние сессии должны вытесняться.");
+        for (int t = 0; t < threads; t++) {
+            for (int c = 0; c < 200; c++) {
+                assertTrue(shared.getHistory("client-" + t + "-" + c).stream().noneMatch(task -> task.getId() == 7),
+                        "Удалённая задача не должна оставаться в историях.");
+            }
+        }
+    }
+}
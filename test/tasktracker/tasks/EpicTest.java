@@ -1,10 +1,12 @@
 package tasktracker.tasks;
 
 import org.junit.jupiter.api.Test;
+import tasktracker.manager.InMemoryTaskManager;
 import tasktracker.status.TaskStatus;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -18,6 +20,22 @@ class EpicTest {
         assertEquals(epic1, epic2, "Эпики с одинаковыми полями должны быть равны.");
     }
 
+    @Test
+    void shouldKeepSubtasksInInsertionOrder() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Epic epic = new Epic("Epic", "Description", 1);
+        manager.createEpic(epic);
+        for (int id : new int[] {10, 5, 7}) {
+            manager.createSubtask(new Subtask("Subtask " + id, "Description", id, TaskStatus.NEW, null, null, 1));
+        }
+        manager.deleteSubtaskById(5);
+        manager.createSubtask(new Subtask("Subtask 3", "Description", 3, TaskStatus.NEW, null, null, 1));
+
+        assertEquals(List.of(10, 7, 3), epic.getSubtaskIds(),
+                "Подзадачи должны идти в порядке добавления, а не в порядке хеш-таблицы.");
+        assertEquals(List.of(10, 7, 3), manager.getSubtasksOfEpic(1).stream().map(Task::getId).toList());
+    }
+
     @Test
     void shouldNotAssignSubtaskToItselfAsEpic() {
         Subtask subtask = new Subtask(
@@ -34,4 +52,43 @@ class EpicTest {
             subtask.setEpicId(subtask.getId());  // Попытка назначить подзадачу своим же эпиком
         });
     }
+
+    @Test
+    void shouldTrackEpicTimesIncrementally() {
+        InMemoryTaskManager taskManager = new InMemoryTaskManager();
+        Epic epic = new Epic("Epic", "Description", taskManager.generateId());
+        taskManager.createEpic(epic);
+
+        LocalDateTime fixedTime = LocalDateTime.of(2023, 1, 1, 10, 0);
+        Subtask early = new Subtask("Early", "Description", taskManager.generateId(), TaskStatus.NEW,
+                Duration.ofMinutes(30), fixedTime, epic.getId());
+        Subtask late = new Subtask("Late", "Description", taskManager.generateId(), TaskStatus.DONE,
+                Duration.ofMinutes(15), fixedTime.plusHours(5), epic.getId());
+        taskManager.createSubtask(late);
+        taskManager.createSubtask(early);
+
+        assertEquals(fixedTime, epic.getStartTime(), "Начало эпика — самое раннее начало подзадач.");
+        assertEquals(fixedTime.plusHours(5).plusMinutes(15), epic.getEndTime(),
+                "Окончание эпика — самое позднее окончание подзадач.");
+        assertEquals(Duration.ofMinutes(45), epic.getDuration(), "Длительность эпика — сумма длительностей подзадач.");
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus());
+
+        // Подзадача изменена на месте и передана в менеджер тем же объектом
+        early.setStatus(TaskStatus.DONE);
+        early.setStartTime(fixedTime.plusHours(6));
+        taskManager.updateSubtask(early);
+
+        assertEquals(TaskStatus.DONE, epic.getStatus(), "Статус должен учитывать новое состояние подзадачи.");
+        assertEquals(fixedTime.plusHours(5), epic.getStartTime());
+        assertEquals(fixedTime.plusHours(6).plusMinutes(30), epic.getEndTime());
+
+        taskManager.deleteSubtaskById(early.getId());
+        assertEquals(fixedTime.plusHours(5).plusMinutes(15), epic.getEndTime());
+        assertEquals(Duration.ofMinutes(15), epic.getDuration());
+
+        taskManager.deleteAllSubtasks();
+        assertNull(epic.getStartTime(), "Эпик без подзадач не имеет времени начала.");
+        assertNull(epic.getEndTime(), "Эпик без подзадач не имеет времени окончания.");
+        assertEquals(TaskStatus.NEW, epic.getStatus());
+    }
 }
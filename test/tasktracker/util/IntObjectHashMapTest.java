@@ -0,0 +1,77 @@
+package tasktracker.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntObjectHashMapTest {
+
+    @Test
+    void shouldBehaveLikeHashMapUnderRandomOperations() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            // Небольшой диапазон ключей, чтобы цепочки пробирования часто сдвигались при удалении
+            int key = random.nextInt(512) - 64;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key), "Удаление должно вернуть прежнее значение.");
+            } else {
+                String value = "v" + i;
+                assertEquals(expected.put(key, value), map.put(key, value), "Запись должна вернуть прежнее значение.");
+            }
+        }
+        assertEquals(expected.size(), map.size(), "Размеры таблиц должны совпадать.");
+        for (int key = -64; key < 448; key++) {
+            assertEquals(expected.get(key), map.get(key), "Значение по ключу " + key + " должно совпадать.");
+        }
+        List<String> values = new ArrayList<>(map.values());
+        assertEquals(new HashSet<>(expected.values()), new HashSet<>(values));
+    }
+
+    @Test
+    void shouldKeepSequentialIdsInOrderAfterRemovals() {
+        IntObjectHashMap<Integer> map = new IntObjectHashMap<>();
+        List<Integer> expected = new ArrayList<>();
+        for (int id = 1; id <= 10_000; id++) {
+            map.put(id, id);
+        }
+        for (int id = 1; id <= 10_000; id++) {
+            if (id % 3 == 0) {
+                assertEquals(id, map.remove(id), "Удаление должно вернуть значение.");
+            } else {
+                expected.add(id);
+            }
+        }
+        // Списки задач отдаются в порядке id, как и раньше с HashMap
+        assertEquals(expected, new ArrayList<>(map.values()), "Последовательные id должны обходиться по порядку.");
+    }
+
+    @Test
+    void shouldKeepZeroAsOrdinaryElementOfIntHashSet() {
+        IntHashSet set = new IntHashSet();
+        Set<Integer> expected = new HashSet<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(256) - 32;
+            if (random.nextBoolean()) {
+                assertEquals(expected.remove(key), set.remove(key));
+            } else {
+                assertEquals(expected.add(key), set.add(key));
+            }
+        }
+        assertEquals(expected.size(), set.size(), "Размеры множеств должны совпадать.");
+        Set<Integer> actual = new HashSet<>();
+        set.forEach(actual::add);
+        assertEquals(expected, actual, "Множество должно содержать те же элементы, включая 0.");
+        assertEquals(expected.contains(0), set.contains(0));
+    }
+}